@@ -1,28 +1,166 @@
 package com.transac.OrdersService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transac.OrdersService.command.OrderAggregate;
+import com.transac.OrdersService.core.data.DeadlinesRepository;
+import com.transac.OrdersService.core.deadlines.PersistentDeadlineManager;
+import com.transac.OrdersService.core.sagastore.IndexedSagaStore;
+import com.transac.OrdersService.query.OrderResultsHandler;
+import com.transac.core.caching.BoundedLruCache;
+import com.transac.core.consistency.ProcessorTokenReader;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
+import com.transac.core.idempotency.JpaIdempotencyStore;
+import com.transac.core.snapshotting.AdaptiveSnapshotTriggerDefinition;
+import org.axonframework.common.jpa.EntityManagerProvider;
 import org.axonframework.config.Configuration;
 import org.axonframework.config.ConfigurationScopeAwareProvider;
-import org.axonframework.deadline.DeadlineManager;
-import org.axonframework.deadline.SimpleDeadlineManager;
+import org.axonframework.config.EventProcessingConfiguration;
+import org.axonframework.config.EventProcessingConfigurer;
+import org.axonframework.eventhandling.TrackingEventProcessorConfiguration;
+import org.axonframework.eventhandling.tokenstore.inmemory.InMemoryTokenStore;
+import org.axonframework.eventhandling.tokenstore.jpa.TokenEntry;
+import org.axonframework.eventsourcing.Snapshotter;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.eventsourcing.eventstore.jpa.DomainEventEntry;
+import org.axonframework.messaging.StreamableMessageSource;
+import org.axonframework.modelling.saga.repository.jpa.JpaSagaStore;
+import org.axonframework.modelling.saga.repository.jpa.SagaEntry;
+import org.axonframework.serialization.Serializer;
 import org.axonframework.spring.messaging.unitofwork.SpringTransactionManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.context.annotation.Bean;
 
+import java.time.Duration;
+import java.util.UUID;
+
 @SpringBootApplication
 @EnableEurekaClient
+// The idempotency keys table is mapped in core, and an explicit scan replaces the default one, so Axon's entities are listed too
+@EntityScan(basePackageClasses = { OrdersServiceApplication.class, JpaIdempotencyStore.class,
+		DomainEventEntry.class, TokenEntry.class, SagaEntry.class })
 public class OrdersServiceApplication {
 
 	public static void main(String[] args) {
 		SpringApplication.run(OrdersServiceApplication.class, args);
 	}
 
+	@Autowired
+	public void configureOrderAggregate(@Value("${orders.aggregate.lean-state:true}") boolean leanState) {
+		// Lean state keeps only the identifier and status the command handlers need, full state also sources the order details
+		OrderAggregate.setLeanState(leanState);
+	}
+
+	@Autowired
+	public void configure(EventProcessingConfigurer config,
+						  @Value("${orders.saga.segments:4}") int sagaSegments,
+						  @Value("${orders.saga.threads:${orders.saga.segments:4}}") int sagaThreads,
+						  ObjectProvider<IndexedSagaStore> sagaStore) {
+		// Saga segments are matched on the saga identifier, so every event of one order is handled by the same thread in stream order.
+		// The segment count only applies when the processor has no tokens yet, existing segments can be split at runtime
+		config.registerTrackingEventProcessorConfiguration("OrderSagaProcessor", conf ->
+				TrackingEventProcessorConfiguration.forParallelProcessing(sagaThreads)
+						.andInitialSegmentsCount(sagaSegments)
+						.andEventTrackerStatusChangeListener(sagaStore.getObject().segmentOwnershipListener()));
+
+		// Each instance gets a processor of its own that starts at the head, so every instance sees every order result
+		String orderResultsProcessor = "order-results-" + UUID.randomUUID();
+		config.assignHandlerTypesMatching(orderResultsProcessor, type -> type == OrderResultsHandler.class);
+		config.registerTokenStore(orderResultsProcessor, conf -> new InMemoryTokenStore());
+		config.registerTrackingEventProcessorConfiguration(orderResultsProcessor, conf ->
+				TrackingEventProcessorConfiguration.forSingleThreadedProcessing()
+						.andInitialTrackingToken(StreamableMessageSource::createHeadToken));
+	}
+
+	@Bean
+	public PersistentDeadlineManager deadlineManager(Configuration configuration, SpringTransactionManager transactionManager,
+													 Serializer serializer, DeadlinesRepository deadlinesRepository,
+													 @Value("${orders.deadlines.tick-ms:100}") long tickMillis,
+													 @Value("${orders.deadlines.wheel-size:512}") int wheelSize,
+													 @Value("${orders.deadlines.horizon-ms:60000}") long horizonMillis,
+													 @Value("${orders.deadlines.load-interval-ms:10000}") long loadIntervalMillis,
+													 @Value("${orders.deadlines.load-batch-size:1000}") int loadBatchSize,
+													 @Value("${orders.deadlines.rescan-interval-ms:60000}") long rescanIntervalMillis,
+													 @Value("${orders.deadlines.executor-threads:2}") int executorThreads,
+													 @Value("${orders.deadlines.retry-backoff-ms:1000}") long retryBackoffMillis,
+													 @Value("${orders.deadlines.max-retry-backoff-ms:60000}") long maxRetryBackoffMillis) {
+		return new PersistentDeadlineManager(new ConfigurationScopeAwareProvider(configuration), transactionManager, serializer,
+				deadlinesRepository, tickMillis, wheelSize, horizonMillis, loadIntervalMillis, loadBatchSize, rescanIntervalMillis, executorThreads,
+				retryBackoffMillis, maxRetryBackoffMillis);
+	}
+
+	@Bean(name = "orderCache")
+	public BoundedLruCache orderCache(@Value("${orders.aggregate-cache.max-size:1000}") int maxSize) {
+		return new BoundedLruCache(maxSize);
+	}
+
+	@Bean(name = "orderSnapshotTriggerDefinition")
+	public AdaptiveSnapshotTriggerDefinition orderSnapshotTriggerDefinition(Snapshotter snapshotter,
+							@Value("${orders.snapshot.load-time-target-ms:50}") long loadTimeTargetMillis,
+							@Value("${orders.snapshot.min-events:2}") int minEvents,
+							@Value("${orders.snapshot.max-events:500}") int maxEvents) {
+		// Snapshot once loading gets slow, or after max-events regardless of how fast loading is.
+		// An order has at most three events, so min-events has to stay below that for the trigger to fire at all
+		return AdaptiveSnapshotTriggerDefinition.builder()
+				.snapshotter(snapshotter)
+				.loadTimeTarget(OrderAggregate.class, Duration.ofMillis(loadTimeTargetMillis))
+				.minEventsBetweenSnapshots(minEvents)
+				.maxEventsBetweenSnapshots(maxEvents)
+				.build();
+	}
+
+	@Bean
+	public ProcessorTokenReader processorTokenReader(EntityManagerProvider entityManagerProvider, SpringTransactionManager transactionManager,
+													 Serializer serializer) {
+		return new ProcessorTokenReader(entityManagerProvider, transactionManager, serializer);
+	}
+
+	@Bean(name = "orderProjectionPositionTracker")
+	public ProjectionPositionTracker orderProjectionPositionTracker(EventProcessingConfiguration eventProcessingConfiguration, EventStore eventStore,
+																   ProcessorTokenReader processorTokenReader,
+																   @Value("${orders.consistency.poll-interval-ms:10}") long pollIntervalMillis,
+																   @Value("${orders.consistency.wait-timeout-ms:5000}") long waitTimeoutMillis,
+																   @Value("${orders.consistency.executor-threads:8}") int executorThreads,
+																   @Value("${orders.consistency.executor-queue-capacity:1000}") int executorQueueCapacity) {
+		return new ProjectionPositionTracker("order-group", eventProcessingConfiguration, eventStore, processorTokenReader,
+				pollIntervalMillis, waitTimeoutMillis, executorThreads, executorQueueCapacity);
+	}
+
+	@Bean
+	public JpaIdempotencyStore idempotencyStore(EntityManagerProvider entityManagerProvider, SpringTransactionManager transactionManager,
+												ObjectMapper objectMapper,
+												@Value("${orders.idempotency.purge-interval-ms:60000}") long purgeIntervalMillis) {
+		return new JpaIdempotencyStore(entityManagerProvider, transactionManager, objectMapper, purgeIntervalMillis);
+	}
+
+	@Bean
+	public IdempotencyRegistry idempotencyRegistry(JpaIdempotencyStore idempotencyStore,
+							@Value("${orders.idempotency.ttl-ms:86400000}") long ttlMillis,
+							@Value("${orders.idempotency.cache-size:10000}") int cacheSize) {
+		return new IdempotencyRegistry(idempotencyStore, Duration.ofMillis(ttlMillis), cacheSize);
+	}
+
+	@Bean(name = "orderSagaCache")
+	public BoundedLruCache orderSagaCache(@Value("${orders.saga.store.cache-size:10000}") int maxSize) {
+		return new BoundedLruCache(maxSize);
+	}
+
 	@Bean
-	public DeadlineManager deadlineManager(Configuration configuration, SpringTransactionManager transactionManager) {
-		return SimpleDeadlineManager.builder()
-				.scopeAwareProvider(new ConfigurationScopeAwareProvider(configuration))
-				.transactionManager(transactionManager).build();
+	public IndexedSagaStore sagaStore(EntityManagerProvider entityManagerProvider, Serializer serializer,
+									  @Qualifier("orderSagaCache") BoundedLruCache orderSagaCache,
+									  @Value("${orders.saga.store.index-size:100000}") long maxIndexSize) {
+		// Writes still go straight to the JPA saga store, the index and cache only take the reads off it
+		JpaSagaStore jpaSagaStore = JpaSagaStore.builder()
+				.entityManagerProvider(entityManagerProvider)
+				.serializer(serializer).build();
+		return new IndexedSagaStore(jpaSagaStore, orderSagaCache, maxIndexSize);
 	}
 
 }
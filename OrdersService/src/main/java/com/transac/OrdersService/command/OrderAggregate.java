@@ -14,16 +14,20 @@ import org.axonframework.modelling.command.AggregateLifecycle;
 import org.axonframework.spring.stereotype.Aggregate;
 import org.springframework.beans.BeanUtils;
 
-@Aggregate
+@Aggregate(snapshotTriggerDefinition = "orderSnapshotTriggerDefinition", cache = "orderCache")
 public class OrderAggregate {
 
+    // Set from orders.aggregate.lean-state at startup, Axon creates and deserializes aggregates outside of Spring
+    private static volatile boolean leanState = true;
+
     @AggregateIdentifier
     private String orderId;
+    private OrderStatus orderStatus;
+    // Only sourced in full state mode, no command handler reads them and they also live in the events and the projection
     private String userId;
     private String productId;
     private int quantity;
     private String addressId;
-    private OrderStatus orderStatus;
 
     public OrderAggregate() {}
 
@@ -34,26 +38,49 @@ public class OrderAggregate {
         AggregateLifecycle.apply(orderCreatedEvent);
     }
 
+    public static void setLeanState(boolean leanState) {
+        OrderAggregate.leanState = leanState;
+    }
+
     @CommandHandler
     public void handle(ApproveOrderCommand approveOrderCommand) {
+        if(!canMoveTo(OrderStatus.APPROVED)) {
+            return;
+        }
         OrderApprovedEvent orderApprovedEvent = new OrderApprovedEvent(approveOrderCommand.getOrderId());
         AggregateLifecycle.apply(orderApprovedEvent);
     }
 
     @CommandHandler
     public void handle(RejectOrderCommand rejectOrderCommand) {
+        if(!canMoveTo(OrderStatus.REJECTED)) {
+            return;
+        }
         OrderRejectedEvent orderRejectedEvent = new OrderRejectedEvent(rejectOrderCommand.getOrderId(), rejectOrderCommand.getReason());
         AggregateLifecycle.apply(orderRejectedEvent);
     }
 
+    // A repeated command for the status the order already has is a no-op, a different final status is not allowed
+    private boolean canMoveTo(OrderStatus targetStatus) {
+        if(orderStatus == targetStatus) {
+            return false;
+        }
+        if(orderStatus != OrderStatus.CREATED) {
+            throw new IllegalStateException(String.format("Order %s is already %s and cannot be %s", orderId, orderStatus, targetStatus));
+        }
+        return true;
+    }
+
     @EventSourcingHandler
     protected void on(OrderCreatedEvent orderCreatedEvent) throws Exception{
         this.orderId = orderCreatedEvent.getOrderId();
-        this.userId = orderCreatedEvent.getUserId();
-        this.productId = orderCreatedEvent.getProductId();
-        this.quantity = orderCreatedEvent.getQuantity();
-        this.addressId = orderCreatedEvent.getAddressId();
         this.orderStatus = orderCreatedEvent.getOrderStatus();
+        if(!leanState) {
+            this.userId = orderCreatedEvent.getUserId();
+            this.productId = orderCreatedEvent.getProductId();
+            this.quantity = orderCreatedEvent.getQuantity();
+            this.addressId = orderCreatedEvent.getAddressId();
+        }
     }
 
     @EventSourcingHandler
@@ -0,0 +1,6 @@
+package com.transac.OrdersService.command.rest;
+
+// How far an order of a batch got; these are not order states, an order only has a status once it was accepted
+public enum BatchOrderOutcome {
+    COMPLETED, PENDING, NOT_ACCEPTED
+}
@@ -0,0 +1,15 @@
+package com.transac.OrdersService.command.rest;
+
+import com.transac.OrdersService.core.models.OrderStatus;
+import lombok.Value;
+
+// index is the position of the order in the request; orderId is only set for orders that were accepted,
+// orderStatus only for orders that completed
+@Value
+public class BatchOrderResult {
+    int index;
+    String orderId;
+    BatchOrderOutcome outcome;
+    OrderStatus orderStatus;
+    String message;
+}
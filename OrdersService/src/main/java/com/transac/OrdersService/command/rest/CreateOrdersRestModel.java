@@ -0,0 +1,16 @@
+package com.transac.OrdersService.command.rest;
+
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Data
+public class CreateOrdersRestModel {
+
+    @NotEmpty(message = "At least one order is required")
+    @Size(max = 1000, message = "A batch cannot contain more than 1000 orders")
+    private List<@Valid CreateOrderRestModel> orders;
+}
@@ -1,21 +1,35 @@
 package com.transac.OrdersService.command.rest;
 
 import com.transac.OrdersService.command.commands.CreateOrderCommand;
+import com.transac.OrdersService.core.admission.OrderAdmissionLimiter;
+import com.transac.OrdersService.core.admission.OrderAdmissionRejectedException;
 import com.transac.OrdersService.core.models.OrderStatus;
 import com.transac.OrdersService.core.models.OrderSummary;
 import com.transac.OrdersService.query.FindOrderQuery;
+import com.transac.OrdersService.query.PendingOrdersRegistry;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
 import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
-import org.axonframework.queryhandling.SubscriptionQueryResult;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import javax.validation.Valid;
+import java.time.Duration;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/orders")
@@ -23,33 +37,146 @@ public class OrdersCommandController {
 
     private final CommandGateway commandGateway;
     private final QueryGateway queryGateway;
+    private final PendingOrdersRegistry pendingOrdersRegistry;
+    private final OrderAdmissionLimiter orderAdmissionLimiter;
+    private final ProjectionPositionTracker orderProjectionPositionTracker;
+    private final IdempotencyRegistry idempotencyRegistry;
+    private final Duration createOrderTimeout;
+    private final int batchConcurrency;
 
     @Autowired
-    public OrdersCommandController(CommandGateway commandGateway, QueryGateway queryGateway) {
+    public OrdersCommandController(CommandGateway commandGateway, QueryGateway queryGateway, PendingOrdersRegistry pendingOrdersRegistry,
+                                   OrderAdmissionLimiter orderAdmissionLimiter,
+                                   ProjectionPositionTracker orderProjectionPositionTracker,
+                                   IdempotencyRegistry idempotencyRegistry,
+                                   @Value("${orders.create.timeout-ms:10000}") long createOrderTimeoutMillis,
+                                   @Value("${orders.batch.concurrency:32}") int batchConcurrency) {
         this.commandGateway = commandGateway;
         this.queryGateway = queryGateway;
+        this.pendingOrdersRegistry = pendingOrdersRegistry;
+        this.orderAdmissionLimiter = orderAdmissionLimiter;
+        this.orderProjectionPositionTracker = orderProjectionPositionTracker;
+        this.idempotencyRegistry = idempotencyRegistry;
+        this.createOrderTimeout = Duration.ofMillis(createOrderTimeoutMillis);
+        this.batchConcurrency = batchConcurrency;
     }
 
     @PostMapping
-    public OrderSummary createOrder(@Valid @RequestBody CreateOrderRestModel createOrderRestModel) {
-        String orderId = UUID.randomUUID().toString();
-        CreateOrderCommand createOrderCommand = CreateOrderCommand.builder()
-                .orderId(orderId)
+    public CompletableFuture<ResponseEntity<OrderSummary>> createOrder(@RequestHeader(name = IdempotencyRegistry.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                       @Valid @RequestBody CreateOrderRestModel createOrderRestModel) {
+        CreateOrderCommand createOrderCommand = toCreateOrderCommand(createOrderRestModel);
+        CompletableFuture<OrderSummary> orderSummary;
+        if(idempotencyKey == null) {
+            orderSummary = submitOrder(createOrderCommand, new CompletableFuture<>());
+        } else {
+            // The key is bound to the order id once the command is accepted; a retry then waits for that order's outcome
+            // instead of creating a second order, even when the first request timed out
+            CompletableFuture<OrderSummary> submittedOrder = new CompletableFuture<>();
+            String fingerprint = IdempotencyRegistry.fingerprint(createOrderRestModel.getProductId(), createOrderRestModel.getQuantity(),
+                    createOrderRestModel.getAddressId());
+            orderSummary = idempotencyRegistry.execute("create-order", idempotencyKey, fingerprint, String.class, () -> {
+                CompletableFuture<Object> commandResult = new CompletableFuture<>();
+                submitOrder(createOrderCommand, commandResult).whenComplete((summary, exception) -> {
+                    if(exception != null) {
+                        submittedOrder.completeExceptionally(exception);
+                    } else {
+                        submittedOrder.complete(summary);
+                    }
+                });
+                return commandResult.thenApply(result -> createOrderCommand.getOrderId());
+            }).thenCompose(orderId -> orderId.equals(createOrderCommand.getOrderId()) ? submittedOrder : awaitOrderSummary(orderId));
+        }
+        return orderSummary.thenApplyAsync(summary -> ResponseEntity.ok()
+                // The saga has seen the final order event, so the head position covers it; reading it is a remote call, hence async
+                .header(ProjectionPositionTracker.CONSISTENCY_TOKEN_HEADER, String.valueOf(orderProjectionPositionTracker.headPosition()))
+                .body(summary), orderProjectionPositionTracker.getExecutor());
+    }
+
+    private CompletableFuture<OrderSummary> submitOrder(CreateOrderCommand createOrderCommand, CompletableFuture<Object> commandResult) {
+        // Turned away before any command is sent, so an overloaded service does not take on more sagas.
+        // The slot is held until the saga ends, which OrderResultsHandler reports, even if this request times out first
+        String orderId = createOrderCommand.getOrderId();
+        if(!orderAdmissionLimiter.tryAcquire(orderId)) {
+            throw new OrderAdmissionRejectedException(orderAdmissionLimiter.getRetryAfterSeconds());
+        }
+
+        // Registered before the command is sent, so the result cannot be missed; no thread waits for it.
+        // Every instance runs its own results processor, which completes the entry once the final order event is committed
+        CompletableFuture<OrderSummary> result = pendingOrdersRegistry.register(orderId);
+        CompletableFuture<OrderSummary> orderSummary = Mono.fromFuture(result)
+                .timeout(createOrderTimeout)
+                .toFuture();
+        commandGateway.send(createOrderCommand).whenComplete((sent, exception) -> {
+            if(exception != null) {
+                // Failing the source lets the timeout operator cancel its timer instead of leaving it armed until it fires
+                orderAdmissionLimiter.discard(orderId);
+                result.completeExceptionally(exception);
+                commandResult.completeExceptionally(exception);
+            } else {
+                commandResult.complete(sent);
+            }
+        });
+        return orderSummary.whenComplete((summary, exception) -> pendingOrdersRegistry.remove(orderId, result));
+    }
+
+    // Waits for an order submitted by an earlier request, which may have finished already or run on another instance
+    private CompletableFuture<OrderSummary> awaitOrderSummary(String orderId) {
+        // Registered before the query runs, so an order finishing in between still completes the entry
+        CompletableFuture<OrderSummary> result = pendingOrdersRegistry.register(orderId);
+        Mono<OrderSummary> completedOrder = Mono.fromFuture(queryGateway.query(new FindOrderQuery(orderId), ResponseTypes.instanceOf(OrderSummary.class)))
+                .filter(summary -> summary.getOrderStatus() != OrderStatus.CREATED);
+        return Mono.firstWithValue(completedOrder, Mono.fromFuture(result))
+                .timeout(createOrderTimeout)
+                .toFuture()
+                .whenComplete((summary, exception) -> pendingOrdersRegistry.remove(orderId, result));
+    }
+
+    @PostMapping(path = "/batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchOrderResult> createOrders(@Valid @RequestBody CreateOrdersRestModel createOrdersRestModel) {
+        List<CreateOrderCommand> createOrderCommands = createOrdersRestModel.getOrders().stream()
+                .map(this::toCreateOrderCommand)
+                .collect(Collectors.toList());
+
+        // Results are streamed in completion order, at most batchConcurrency orders are in flight at once
+        return Flux.range(0, createOrderCommands.size())
+                .flatMap(index -> submitBatchOrder(index, createOrderCommands.get(index)), batchConcurrency);
+    }
+
+    private Mono<BatchOrderResult> submitBatchOrder(int index, CreateOrderCommand createOrderCommand) {
+        String orderId = createOrderCommand.getOrderId();
+        if(!orderAdmissionLimiter.tryAcquire(orderId)) {
+            return Mono.just(new BatchOrderResult(index, null, BatchOrderOutcome.NOT_ACCEPTED, null,
+                    "Too many orders are being processed, retry after " + orderAdmissionLimiter.getRetryAfterSeconds() + " seconds"));
+        }
+
+        CompletableFuture<OrderSummary> result = pendingOrdersRegistry.register(orderId);
+        CompletableFuture<Object> sent = commandGateway.send(createOrderCommand);
+        return Mono.fromFuture(sent)
+                .then(Mono.fromFuture(result))
+                .map(summary -> new BatchOrderResult(index, orderId, BatchOrderOutcome.COMPLETED, summary.getOrderStatus(), summary.getMessage()))
+                .timeout(createOrderTimeout)
+                // Removed before the result is emitted rather than after it, so the registry is clean once the batch has ended
+                .doOnTerminate(() -> pendingOrdersRegistry.remove(orderId, result))
+                .doOnCancel(() -> pendingOrdersRegistry.remove(orderId, result))
+                // A failed order is reported in the stream, it does not end the batch. Only a rejected command means the
+                // order does not exist; after a timeout it may still be created, so its id is returned to look it up later
+                .onErrorResume(exception -> {
+                    if(sent.isCompletedExceptionally()) {
+                        orderAdmissionLimiter.discard(orderId);
+                        return Mono.just(new BatchOrderResult(index, null, BatchOrderOutcome.NOT_ACCEPTED, null, exception.getMessage()));
+                    }
+                    return Mono.just(new BatchOrderResult(index, orderId, BatchOrderOutcome.PENDING, null,
+                            "The order was not completed in time, check its status later"));
+                });
+    }
+
+    private CreateOrderCommand toCreateOrderCommand(CreateOrderRestModel createOrderRestModel) {
+        return CreateOrderCommand.builder()
+                .orderId(UUID.randomUUID().toString())
                 .userId("27b95829-4f3f-4ddf-8983-151ba010e35b")
                 .productId(createOrderRestModel.getProductId())
                 .quantity(createOrderRestModel.getQuantity())
                 .orderStatus(OrderStatus.CREATED)
                 .addressId(createOrderRestModel.getAddressId()).build();
-
-        SubscriptionQueryResult<OrderSummary, OrderSummary> queryResult = queryGateway.subscriptionQuery(
-                new FindOrderQuery(orderId), ResponseTypes.instanceOf(OrderSummary.class), ResponseTypes.instanceOf(OrderSummary.class)
-        );
-
-        try {
-            commandGateway.sendAndWait(createOrderCommand);
-            return queryResult.updates().blockFirst();
-        } finally {
-            queryResult.close();
-        }
     }
 }
@@ -0,0 +1,122 @@
+package com.transac.OrdersService.core.admission;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class OrderAdmissionLimiter {
+
+    private static final double SMOOTHING = 0.05;
+
+    private final boolean enabled;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final long maxSagaNanos;
+    // Admission time per order, in admission order; a slot is held until the order's saga ends, not until its request does
+    private final LinkedHashMap<String, Long> inFlightOrders = new LinkedHashMap<>();
+
+    private double limit;
+    private double averageLatencyNanos;
+    private double rejectionRate;
+    private long admitted;
+    private long rejected;
+    private long limitDecreases;
+    private long expired;
+
+    public OrderAdmissionLimiter(@Value("${orders.admission.enabled:true}") boolean enabled,
+                                 @Value("${orders.admission.initial-limit:100}") int initialLimit,
+                                 @Value("${orders.admission.min-limit:10}") int minLimit,
+                                 @Value("${orders.admission.max-limit:1000}") int maxLimit,
+                                 @Value("${orders.admission.latency-target-ms:5000}") long latencyTargetMillis,
+                                 @Value("${orders.admission.backoff-ratio:0.9}") double backoffRatio,
+                                 @Value("${orders.admission.max-saga-ms:180000}") long maxSagaMillis) {
+        this.enabled = enabled;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.latencyTargetNanos = TimeUnit.MILLISECONDS.toNanos(latencyTargetMillis);
+        this.backoffRatio = backoffRatio;
+        this.maxSagaNanos = TimeUnit.MILLISECONDS.toNanos(maxSagaMillis);
+        this.limit = Math.max(this.minLimit, Math.min(initialLimit, this.maxLimit));
+    }
+
+    public synchronized boolean tryAcquire(String orderId) {
+        long now = System.nanoTime();
+        if(inFlightOrders.size() >= (int) limit) {
+            expireStale(now);
+        }
+        if(enabled && inFlightOrders.size() >= (int) limit) {
+            rejected++;
+            rejectionRate += SMOOTHING * (1 - rejectionRate);
+            return false;
+        }
+        inFlightOrders.put(orderId, now);
+        admitted++;
+        rejectionRate -= SMOOTHING * rejectionRate;
+        return true;
+    }
+
+    // Called when the order's saga has ended; orders admitted by another instance are not tracked here and are ignored
+    public synchronized void release(String orderId) {
+        int inFlightBefore = inFlightOrders.size();
+        Long admittedAt = inFlightOrders.remove(orderId);
+        if(admittedAt != null) {
+            adapt(System.nanoTime() - admittedAt, inFlightBefore, false);
+        }
+    }
+
+    // The order was never created, so no saga ran and there is no latency to learn from
+    public synchronized void discard(String orderId) {
+        inFlightOrders.remove(orderId);
+    }
+
+    public synchronized long getRetryAfterSeconds() {
+        return Math.max(1, (long) Math.ceil(averageLatencyNanos / TimeUnit.SECONDS.toNanos(1)));
+    }
+
+    public synchronized Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("limit", (int) limit);
+        statistics.put("inFlight", inFlightOrders.size());
+        statistics.put("averageLatencyMillis", averageLatencyNanos / TimeUnit.MILLISECONDS.toNanos(1));
+        statistics.put("admitted", admitted);
+        statistics.put("rejected", rejected);
+        statistics.put("rejectionRate", rejectionRate);
+        statistics.put("limitDecreases", limitDecreases);
+        statistics.put("expired", expired);
+        return statistics;
+    }
+
+    // AIMD: back off when a saga is too slow or never reports its end, grow by one while the limit is actually being used
+    private void adapt(long latencyNanos, int inFlightBefore, boolean dropped) {
+        averageLatencyNanos = averageLatencyNanos == 0 ? latencyNanos : averageLatencyNanos + SMOOTHING * (latencyNanos - averageLatencyNanos);
+        if(dropped || latencyNanos > latencyTargetNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+            limitDecreases++;
+        } else if(inFlightBefore * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    // A saga whose end was never seen, for example because the instance missed its result, must not hold its slot forever
+    private void expireStale(long now) {
+        Iterator<Map.Entry<String, Long>> iterator = inFlightOrders.entrySet().iterator();
+        while(iterator.hasNext()) {
+            Map.Entry<String, Long> inFlightOrder = iterator.next();
+            if(now - inFlightOrder.getValue() < maxSagaNanos) {
+                return;
+            }
+            int inFlightBefore = inFlightOrders.size();
+            iterator.remove();
+            expired++;
+            adapt(now - inFlightOrder.getValue(), inFlightBefore, true);
+        }
+    }
+}
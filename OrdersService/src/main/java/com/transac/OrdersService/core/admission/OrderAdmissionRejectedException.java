@@ -0,0 +1,15 @@
+package com.transac.OrdersService.core.admission;
+
+public class OrderAdmissionRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public OrderAdmissionRejectedException(long retryAfterSeconds) {
+        super("Too many orders are being processed, retry after " + retryAfterSeconds + " seconds");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
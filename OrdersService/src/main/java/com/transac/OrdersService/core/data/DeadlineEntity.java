@@ -0,0 +1,33 @@
+package com.transac.OrdersService.core.data;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "deadlines", indexes = {
+        @Index(name = "idx_deadlines_trigger_time", columnList = "triggerTime"),
+        @Index(name = "idx_deadlines_name_scope", columnList = "deadlineName, scopeDescription")
+})
+@Data
+public class DeadlineEntity implements Serializable {
+
+    private static final long serialVersionUID = -2293157826143504917L;
+
+    @Id
+    private String scheduleId;
+    @Column(nullable = false)
+    private String deadlineName;
+    private long triggerTime;
+    private String scopeDescription;
+    private String scopeType;
+    @Lob
+    private byte[] scope;
+    private String payloadType;
+    private String payloadRevision;
+    @Lob
+    private byte[] payload;
+    @Lob
+    private byte[] metaData;
+}
@@ -0,0 +1,33 @@
+package com.transac.OrdersService.core.data;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface DeadlinesRepository extends JpaRepository<DeadlineEntity, String> {
+
+    interface ScheduledDeadline {
+        String getScheduleId();
+        long getTriggerTime();
+    }
+
+    // Keyset on (triggerTime, scheduleId), so rows claimed and deleted while paging cannot shift later pages
+    @Query("SELECT d.scheduleId AS scheduleId, d.triggerTime AS triggerTime FROM DeadlineEntity d" +
+            " WHERE (d.triggerTime > :afterTriggerTime OR (d.triggerTime = :afterTriggerTime AND d.scheduleId > :afterScheduleId))" +
+            " AND d.triggerTime < :to" +
+            " ORDER BY d.triggerTime, d.scheduleId")
+    List<ScheduledDeadline> findUpcoming(@Param("afterTriggerTime") long afterTriggerTime,
+                                         @Param("afterScheduleId") String afterScheduleId,
+                                         @Param("to") long to,
+                                         Pageable pageable);
+    List<ScheduledDeadline> findByDeadlineName(String deadlineName);
+    List<ScheduledDeadline> findByDeadlineNameAndScopeDescription(String deadlineName, String scopeDescription);
+
+    @Modifying
+    @Query("DELETE FROM DeadlineEntity d WHERE d.scheduleId = :scheduleId")
+    int deleteByScheduleId(@Param("scheduleId") String scheduleId);
+}
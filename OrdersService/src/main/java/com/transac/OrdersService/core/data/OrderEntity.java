@@ -7,7 +7,10 @@ import javax.persistence.*;
 import java.io.Serializable;
 
 @Entity
-@Table(name = "orders")
+@Table(name = "orders", indexes = {
+        @Index(name = "idx_orders_user_created", columnList = "userId, createdAt, orderId"),
+        @Index(name = "idx_orders_user_status_created", columnList = "userId, orderStatus, createdAt, orderId")
+})
 @Data
 public class OrderEntity implements Serializable {
 
@@ -23,4 +26,6 @@ public class OrderEntity implements Serializable {
 
     @Enumerated(EnumType.STRING)
     private OrderStatus orderStatus;
+
+    private long createdAt;
 }
@@ -1,7 +1,37 @@
 package com.transac.OrdersService.core.data;
 
+import com.transac.OrdersService.core.models.OrderStatus;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface OrdersRepository extends JpaRepository<OrderEntity, String> {
     OrderEntity findByOrderId(String orderId);
+
+    // Both pages are range scans on a composite index; the bounds are never null, so no branch can defeat the index
+    @Query("SELECT o FROM OrderEntity o WHERE o.userId = :userId" +
+            " AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo" +
+            " AND (o.createdAt < :beforeCreatedAt OR (o.createdAt = :beforeCreatedAt AND o.orderId < :beforeOrderId))" +
+            " ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<OrderEntity> findUserPage(@Param("userId") String userId,
+                                   @Param("createdFrom") long createdFrom,
+                                   @Param("createdTo") long createdTo,
+                                   @Param("beforeCreatedAt") long beforeCreatedAt,
+                                   @Param("beforeOrderId") String beforeOrderId,
+                                   Pageable pageable);
+
+    @Query("SELECT o FROM OrderEntity o WHERE o.userId = :userId AND o.orderStatus = :orderStatus" +
+            " AND o.createdAt >= :createdFrom AND o.createdAt < :createdTo" +
+            " AND (o.createdAt < :beforeCreatedAt OR (o.createdAt = :beforeCreatedAt AND o.orderId < :beforeOrderId))" +
+            " ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<OrderEntity> findUserPageByStatus(@Param("userId") String userId,
+                                           @Param("orderStatus") OrderStatus orderStatus,
+                                           @Param("createdFrom") long createdFrom,
+                                           @Param("createdTo") long createdTo,
+                                           @Param("beforeCreatedAt") long beforeCreatedAt,
+                                           @Param("beforeOrderId") String beforeOrderId,
+                                           Pageable pageable);
 }
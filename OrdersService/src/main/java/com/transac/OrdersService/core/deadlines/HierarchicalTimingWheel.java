@@ -0,0 +1,120 @@
+package com.transac.OrdersService.core.deadlines;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+public class HierarchicalTimingWheel {
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long interval;
+    private final Bucket[] buckets;
+    private final PriorityQueue<Bucket> queue;
+    private long currentTime;
+    private HierarchicalTimingWheel overflowWheel;
+
+    public HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis) {
+        this(tickMillis, wheelSize, startMillis, new PriorityQueue<>(Comparator.comparingLong(bucket -> bucket.expiration)));
+    }
+
+    private HierarchicalTimingWheel(long tickMillis, int wheelSize, long startMillis, PriorityQueue<Bucket> queue) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.interval = tickMillis * wheelSize;
+        this.queue = queue;
+        this.currentTime = startMillis - (startMillis % tickMillis);
+        this.buckets = new Bucket[wheelSize];
+        for(int i = 0; i < wheelSize; i++) {
+            buckets[i] = new Bucket();
+        }
+    }
+
+    // Returns false when the timer is already due and has to be run by the caller
+    public boolean add(Timer timer) {
+        if(timer.isCancelled()) {
+            return true;
+        }
+        if(timer.expiration < currentTime + tickMillis) {
+            return false;
+        }
+        if(timer.expiration < currentTime + interval) {
+            long virtualId = timer.expiration / tickMillis;
+            Bucket bucket = buckets[(int) (virtualId % wheelSize)];
+            bucket.timers.add(timer);
+            long bucketExpiration = virtualId * tickMillis;
+            if(bucket.expiration != bucketExpiration) {
+                bucket.expiration = bucketExpiration;
+                queue.offer(bucket);
+            }
+            return true;
+        }
+        return overflowWheel().add(timer);
+    }
+
+    // Buckets of the coarser wheels are cascaded into the finer ones when they expire
+    public List<Timer> advance(long now) {
+        List<Timer> due = new ArrayList<>();
+        Bucket bucket;
+        while((bucket = queue.peek()) != null && bucket.expiration <= now) {
+            queue.poll();
+            advanceClock(bucket.expiration);
+            List<Timer> timers = bucket.timers;
+            bucket.timers = new ArrayList<>();
+            bucket.expiration = -1;
+            for(Timer timer : timers) {
+                if(!timer.isCancelled() && !add(timer)) {
+                    due.add(timer);
+                }
+            }
+        }
+        advanceClock(now);
+        return due;
+    }
+
+    private void advanceClock(long time) {
+        if(time >= currentTime + tickMillis) {
+            currentTime = time - (time % tickMillis);
+            if(overflowWheel != null) {
+                overflowWheel.advanceClock(currentTime);
+            }
+        }
+    }
+
+    private HierarchicalTimingWheel overflowWheel() {
+        if(overflowWheel == null) {
+            overflowWheel = new HierarchicalTimingWheel(interval, wheelSize, currentTime, queue);
+        }
+        return overflowWheel;
+    }
+
+    public static class Timer {
+        private final String id;
+        private final long expiration;
+        private volatile boolean cancelled;
+
+        public Timer(String id, long expiration) {
+            this.id = id;
+            this.expiration = expiration;
+        }
+
+        public String getId() {
+            return id;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        // Cancelled timers stay in their bucket and are dropped when it expires
+        public void cancel() {
+            cancelled = true;
+        }
+    }
+
+    private static class Bucket {
+        private List<Timer> timers = new ArrayList<>();
+        private long expiration = -1;
+    }
+}
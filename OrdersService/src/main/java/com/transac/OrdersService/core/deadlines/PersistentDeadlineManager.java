@@ -0,0 +1,337 @@
+package com.transac.OrdersService.core.deadlines;
+
+import com.transac.OrdersService.core.data.DeadlineEntity;
+import com.transac.OrdersService.core.data.DeadlinesRepository;
+import com.transac.core.unitofwork.UnitOfWorkTasks;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.deadline.AbstractDeadlineManager;
+import org.axonframework.deadline.DeadlineException;
+import org.axonframework.deadline.DeadlineMessage;
+import org.axonframework.deadline.GenericDeadlineMessage;
+import org.axonframework.messaging.DefaultInterceptorChain;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MetaData;
+import org.axonframework.messaging.ResultMessage;
+import org.axonframework.messaging.ScopeAwareProvider;
+import org.axonframework.messaging.ScopeDescriptor;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class PersistentDeadlineManager extends AbstractDeadlineManager {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentDeadlineManager.class);
+
+    private final ScopeAwareProvider scopeAwareProvider;
+    private final TransactionManager transactionManager;
+    private final Serializer serializer;
+    private final DeadlinesRepository deadlinesRepository;
+    private final long tickMillis;
+    private final long horizonMillis;
+    private final long loadIntervalMillis;
+    private final int loadBatchSize;
+    private final long rescanIntervalMillis;
+    private final long retryBackoffMillis;
+    private final long maxRetryBackoffMillis;
+
+    private final HierarchicalTimingWheel timingWheel;
+    private final Map<String, HierarchicalTimingWheel.Timer> timers = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Integer> retryAttempts = new ConcurrentHashMap<>();
+    private final ExecutorService executor;
+    // Keyset of the last row the loader has put on the wheel, only touched by the scheduler thread
+    private long loadedTriggerTime = Long.MIN_VALUE;
+    private String loadedScheduleId = "";
+    private long lastRescan;
+
+    private final AtomicLong scheduled = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong loaded = new AtomicLong();
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+
+    public PersistentDeadlineManager(ScopeAwareProvider scopeAwareProvider,
+                                     TransactionManager transactionManager,
+                                     Serializer serializer,
+                                     DeadlinesRepository deadlinesRepository,
+                                     long tickMillis,
+                                     int wheelSize,
+                                     long horizonMillis,
+                                     long loadIntervalMillis,
+                                     int loadBatchSize,
+                                     long rescanIntervalMillis,
+                                     int executorThreads,
+                                     long retryBackoffMillis,
+                                     long maxRetryBackoffMillis) {
+        this.scopeAwareProvider = scopeAwareProvider;
+        this.transactionManager = transactionManager;
+        this.serializer = serializer;
+        this.deadlinesRepository = deadlinesRepository;
+        this.tickMillis = tickMillis;
+        this.horizonMillis = Math.max(horizonMillis, loadIntervalMillis * 2);
+        this.loadIntervalMillis = loadIntervalMillis;
+        this.loadBatchSize = loadBatchSize;
+        this.rescanIntervalMillis = rescanIntervalMillis;
+        this.retryBackoffMillis = retryBackoffMillis;
+        this.maxRetryBackoffMillis = Math.max(retryBackoffMillis, maxRetryBackoffMillis);
+        this.timingWheel = new HierarchicalTimingWheel(tickMillis, wheelSize, System.currentTimeMillis());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(executorThreads, runnable -> {
+            Thread thread = new Thread(runnable, "deadline-executor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Deadlines left over from before a restart are loaded here, overdue ones run right away
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::loadUpcomingDeadlines, 0, loadIntervalMillis, TimeUnit.MILLISECONDS);
+        scheduler.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public String schedule(Instant triggerDateTime, String deadlineName, Object messageOrPayload, ScopeDescriptor deadlineScope) {
+        DeadlineMessage<?> deadlineMessage = processDispatchInterceptors(
+                GenericDeadlineMessage.asDeadlineMessage(deadlineName, messageOrPayload, triggerDateTime));
+        String scheduleId = deadlineMessage.getIdentifier();
+        DeadlineEntity deadlineEntity = toEntity(scheduleId, deadlineMessage, triggerDateTime, deadlineScope);
+        // Stored in the transaction of the scheduling unit of work, so a rollback also drops the deadline
+        transactionManager.executeInTransaction(() -> deadlinesRepository.save(deadlineEntity));
+        scheduled.incrementAndGet();
+
+        long triggerTime = triggerDateTime.toEpochMilli();
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> {
+            // Deadlines past the horizon are picked up by the loader once they come close
+            if(triggerTime < System.currentTimeMillis() + horizonMillis) {
+                addTimer(scheduleId, triggerTime);
+            }
+        });
+        return scheduleId;
+    }
+
+    @Override
+    public String schedule(Duration triggerDuration, String deadlineName, Object messageOrPayload, ScopeDescriptor deadlineScope) {
+        return schedule(Instant.now().plus(triggerDuration), deadlineName, messageOrPayload, deadlineScope);
+    }
+
+    @Override
+    public void cancelSchedule(String deadlineName, String scheduleId) {
+        transactionManager.executeInTransaction(() -> deadlinesRepository.deleteByScheduleId(scheduleId));
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> cancelTimer(scheduleId));
+    }
+
+    @Override
+    public void cancelAll(String deadlineName) {
+        cancelAll(deadlinesRepository.findByDeadlineName(deadlineName));
+    }
+
+    @Override
+    public void cancelAllWithinScope(String deadlineName, ScopeDescriptor scope) {
+        cancelAll(deadlinesRepository.findByDeadlineNameAndScopeDescription(deadlineName, scope.scopeDescription()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("inMemory", timers.size());
+        statistics.put("scheduled", scheduled.get());
+        statistics.put("cancelled", cancelled.get());
+        statistics.put("loaded", loaded.get());
+        statistics.put("executed", executed.get());
+        statistics.put("failed", failed.get());
+        statistics.put("retried", retried.get());
+        statistics.put("retrying", retryAttempts.size());
+        return statistics;
+    }
+
+    private void cancelAll(List<DeadlinesRepository.ScheduledDeadline> deadlines) {
+        transactionManager.executeInTransaction(() ->
+                deadlines.forEach(deadline -> deadlinesRepository.deleteByScheduleId(deadline.getScheduleId())));
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> deadlines.forEach(deadline -> cancelTimer(deadline.getScheduleId())));
+    }
+
+    private void addTimer(String scheduleId, long triggerTime) {
+        HierarchicalTimingWheel.Timer timer = new HierarchicalTimingWheel.Timer(scheduleId, triggerTime);
+        if(timers.putIfAbsent(scheduleId, timer) != null) {
+            return;
+        }
+        boolean added;
+        synchronized(timingWheel) {
+            added = timingWheel.add(timer);
+        }
+        if(!added) {
+            executor.execute(() -> execute(timer));
+        }
+    }
+
+    private void cancelTimer(String scheduleId) {
+        HierarchicalTimingWheel.Timer timer = timers.remove(scheduleId);
+        if(timer != null) {
+            timer.cancel();
+        }
+        retryAttempts.remove(scheduleId);
+        cancelled.incrementAndGet();
+    }
+
+    private void tick() {
+        List<HierarchicalTimingWheel.Timer> due;
+        synchronized(timingWheel) {
+            due = timingWheel.advance(System.currentTimeMillis());
+        }
+        due.forEach(timer -> executor.execute(() -> execute(timer)));
+    }
+
+    private void loadUpcomingDeadlines() {
+        try {
+            long now = System.currentTimeMillis();
+            // A deadline put on another instance's wheel can fall behind the cursor and stay there if that instance goes away,
+            // so the loader starts over now and then. Rows already on the wheel are skipped, a row loaded twice is claimed once
+            if(now - lastRescan >= rescanIntervalMillis) {
+                loadedTriggerTime = Long.MIN_VALUE;
+                loadedScheduleId = "";
+                lastRescan = now;
+            }
+            long to = now + horizonMillis;
+            PageRequest page = PageRequest.of(0, loadBatchSize);
+            List<DeadlinesRepository.ScheduledDeadline> deadlines;
+            do {
+                deadlines = deadlinesRepository.findUpcoming(loadedTriggerTime, loadedScheduleId, to, page);
+                for(DeadlinesRepository.ScheduledDeadline deadline : deadlines) {
+                    addTimer(deadline.getScheduleId(), deadline.getTriggerTime());
+                    // Moved per row, so a failing page resumes after the last deadline that is actually on the wheel
+                    loadedTriggerTime = deadline.getTriggerTime();
+                    loadedScheduleId = deadline.getScheduleId();
+                }
+                loaded.addAndGet(deadlines.size());
+            } while(deadlines.size() == loadBatchSize);
+        } catch (Exception e) {
+            LOGGER.error("Loading upcoming deadlines failed: " + e.getMessage());
+        }
+    }
+
+    private void execute(HierarchicalTimingWheel.Timer timer) {
+        if(!timers.remove(timer.getId(), timer) || timer.isCancelled()) {
+            return;
+        }
+        boolean succeeded;
+        try {
+            // A missing row was cancelled or claimed by another instance
+            succeeded = deadlinesRepository.findById(timer.getId()).map(this::execute).orElse(true);
+        } catch (Exception e) {
+            LOGGER.error("Executing deadline " + timer.getId() + " failed: " + e.getMessage());
+            succeeded = false;
+        }
+        if(succeeded) {
+            retryAttempts.remove(timer.getId());
+        } else {
+            failed.incrementAndGet();
+            retry(timer.getId());
+        }
+    }
+
+    // The claim of a failed deadline is rolled back and the loader has already passed its row, so it is put back on the wheel here
+    private void retry(String scheduleId) {
+        int attempt = retryAttempts.merge(scheduleId, 1, Integer::sum);
+        long backoff = Math.min(maxRetryBackoffMillis, retryBackoffMillis << Math.min(attempt - 1, 20));
+        retried.incrementAndGet();
+        LOGGER.info("Retrying deadline " + scheduleId + " in " + backoff + "ms (attempt " + attempt + ")");
+        addTimer(scheduleId, System.currentTimeMillis() + backoff);
+    }
+
+    private boolean execute(DeadlineEntity deadlineEntity) {
+        DeadlineMessage<?> deadlineMessage = toDeadlineMessage(deadlineEntity);
+        ScopeDescriptor deadlineScope = serializer.deserialize(new SimpleSerializedObject<>(
+                deadlineEntity.getScope(), byte[].class, deadlineEntity.getScopeType(), null));
+
+        DefaultUnitOfWork<DeadlineMessage<?>> unitOfWork = DefaultUnitOfWork.startAndGet(deadlineMessage);
+        unitOfWork.attachTransaction(transactionManager);
+        InterceptorChain chain = new DefaultInterceptorChain<>(unitOfWork, handlerInterceptors(), message -> {
+            // Claimed in the handling transaction, so every deadline runs on one instance only and a failed one stays stored
+            if(deadlinesRepository.deleteByScheduleId(deadlineEntity.getScheduleId()) == 0) {
+                return null;
+            }
+            executeScheduledDeadline(message, deadlineScope);
+            return null;
+        });
+        ResultMessage<?> resultMessage = unitOfWork.executeWithResult(chain::proceed);
+        if(resultMessage.isExceptional()) {
+            LOGGER.error("Deadline " + deadlineEntity.getDeadlineName() + " with id " + deadlineEntity.getScheduleId() + " failed: " +
+                    resultMessage.exceptionResult().getMessage());
+            return false;
+        }
+        executed.incrementAndGet();
+        return true;
+    }
+
+    private void executeScheduledDeadline(DeadlineMessage<?> deadlineMessage, ScopeDescriptor deadlineScope) {
+        scopeAwareProvider.provideScopeAwareStream(deadlineScope)
+                .filter(scopeAwareComponent -> scopeAwareComponent.canResolve(deadlineScope))
+                .forEach(scopeAwareComponent -> {
+                    try {
+                        scopeAwareComponent.send(deadlineMessage, deadlineScope);
+                    } catch (Exception e) {
+                        throw new DeadlineException("Failed to send deadline " + deadlineMessage.getDeadlineName() + " to " +
+                                deadlineScope.scopeDescription(), e);
+                    }
+                });
+    }
+
+    private DeadlineEntity toEntity(String scheduleId, DeadlineMessage<?> deadlineMessage, Instant triggerDateTime, ScopeDescriptor deadlineScope) {
+        SerializedObject<byte[]> payload = deadlineMessage.serializePayload(serializer, byte[].class);
+        SerializedObject<byte[]> metaData = deadlineMessage.serializeMetaData(serializer, byte[].class);
+        SerializedObject<byte[]> scope = serializer.serialize(deadlineScope, byte[].class);
+
+        DeadlineEntity deadlineEntity = new DeadlineEntity();
+        deadlineEntity.setScheduleId(scheduleId);
+        deadlineEntity.setDeadlineName(deadlineMessage.getDeadlineName());
+        deadlineEntity.setTriggerTime(triggerDateTime.toEpochMilli());
+        deadlineEntity.setScopeDescription(deadlineScope.scopeDescription());
+        deadlineEntity.setScopeType(scope.getType().getName());
+        deadlineEntity.setScope(scope.getData());
+        deadlineEntity.setPayloadType(payload.getType().getName());
+        deadlineEntity.setPayloadRevision(payload.getType().getRevision());
+        deadlineEntity.setPayload(payload.getData());
+        deadlineEntity.setMetaData(metaData.getData());
+        return deadlineEntity;
+    }
+
+    private DeadlineMessage<?> toDeadlineMessage(DeadlineEntity deadlineEntity) {
+        Object payload = serializer.deserialize(new SimpleSerializedObject<>(
+                deadlineEntity.getPayload(), byte[].class, deadlineEntity.getPayloadType(), deadlineEntity.getPayloadRevision()));
+        MetaData metaData = serializer.deserialize(new SimpleSerializedObject<>(
+                deadlineEntity.getMetaData(), byte[].class, MetaData.class.getName(), null));
+        return new GenericDeadlineMessage<>(deadlineEntity.getDeadlineName(), deadlineEntity.getScheduleId(), payload, metaData,
+                Instant.ofEpochMilli(deadlineEntity.getTriggerTime()));
+    }
+}
@@ -0,0 +1,11 @@
+package com.transac.OrdersService.core.errorhandling;
+
+import lombok.Data;
+
+import java.util.Date;
+
+@Data
+public class ErrorMessage {
+    private final Date timestamp;
+    private final String message;
+}
@@ -0,0 +1,50 @@
+package com.transac.OrdersService.core.errorhandling;
+
+import com.transac.OrdersService.core.admission.OrderAdmissionRejectedException;
+import com.transac.core.idempotency.IdempotencyKeyReusedException;
+import org.axonframework.commandhandling.CommandExecutionException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.Date;
+import java.util.concurrent.TimeoutException;
+
+@ControllerAdvice
+public class OrdersServiceErrorHandler {
+
+    @ExceptionHandler(value = { TimeoutException.class })
+    public ResponseEntity<Object> handleTimeoutException(TimeoutException ex, WebRequest request) {
+        ErrorMessage errorMessage = new ErrorMessage(new Date(), "The order was not completed in time, check its status later");
+        return new ResponseEntity<>(errorMessage, new HttpHeaders(), HttpStatus.GATEWAY_TIMEOUT);
+    }
+
+    @ExceptionHandler(value = { IllegalArgumentException.class })
+    public ResponseEntity<Object> handleIllegalArgumentException(IllegalArgumentException ex, WebRequest request) {
+        ErrorMessage errorMessage = new ErrorMessage(new Date(), ex.getMessage());
+        return new ResponseEntity<>(errorMessage, new HttpHeaders(), HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(value = { CommandExecutionException.class })
+    public ResponseEntity<Object> handleCommandExecutionException(CommandExecutionException ex, WebRequest request) {
+        ErrorMessage errorMessage = new ErrorMessage(new Date(), ex.getMessage());
+        return new ResponseEntity<>(errorMessage, new HttpHeaders(), HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+
+    @ExceptionHandler(value = { IdempotencyKeyReusedException.class })
+    public ResponseEntity<Object> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex, WebRequest request) {
+        ErrorMessage errorMessage = new ErrorMessage(new Date(), ex.getMessage());
+        return new ResponseEntity<>(errorMessage, new HttpHeaders(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
+    @ExceptionHandler(value = { OrderAdmissionRejectedException.class })
+    public ResponseEntity<Object> handleOrderAdmissionRejectedException(OrderAdmissionRejectedException ex, WebRequest request) {
+        ErrorMessage errorMessage = new ErrorMessage(new Date(), ex.getMessage());
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity<>(errorMessage, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
@@ -0,0 +1,21 @@
+package com.transac.OrdersService.core.management;
+
+import com.transac.OrdersService.saga.UserPaymentDetailsCache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/management/caches")
+public class ManagementCachesController {
+
+    @Autowired
+    private UserPaymentDetailsCache userPaymentDetailsCache;
+
+    @DeleteMapping("/user-details/{userId}")
+    public void invalidateUserDetails(@PathVariable String userId) {
+        userPaymentDetailsCache.invalidate(userId);
+    }
+}
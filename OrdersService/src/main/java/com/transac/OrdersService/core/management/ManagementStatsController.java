@@ -0,0 +1,142 @@
+package com.transac.OrdersService.core.management;
+
+import com.transac.OrdersService.core.admission.OrderAdmissionLimiter;
+import com.transac.OrdersService.core.deadlines.PersistentDeadlineManager;
+import com.transac.OrdersService.core.sagastore.IndexedSagaStore;
+import com.transac.OrdersService.query.OrderStatusStream;
+import com.transac.OrdersService.query.PendingOrdersRegistry;
+import com.transac.OrdersService.saga.UserPaymentDetailsCache;
+import com.transac.OrdersService.saga.UserPaymentDetailsPrefetcher;
+import com.transac.core.caching.BoundedLruCache;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
+import com.transac.core.snapshotting.AdaptiveSnapshotTriggerDefinition;
+import org.axonframework.config.EventProcessingConfiguration;
+import org.axonframework.eventhandling.TrackingEventProcessor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+@RestController
+@RequestMapping("/management/stats")
+public class ManagementStatsController {
+
+    @Autowired
+    private BoundedLruCache orderCache;
+
+    @Autowired
+    private AdaptiveSnapshotTriggerDefinition orderSnapshotTriggerDefinition;
+
+    @Autowired
+    private PendingOrdersRegistry pendingOrdersRegistry;
+
+    @Autowired
+    private UserPaymentDetailsPrefetcher userPaymentDetailsPrefetcher;
+
+    @Autowired
+    private UserPaymentDetailsCache userPaymentDetailsCache;
+
+    @Autowired
+    private PersistentDeadlineManager deadlineManager;
+
+    @Autowired
+    private IndexedSagaStore sagaStore;
+
+    @Autowired
+    private OrderAdmissionLimiter orderAdmissionLimiter;
+
+    @Autowired
+    private ProjectionPositionTracker orderProjectionPositionTracker;
+
+    @Autowired
+    private OrderStatusStream orderStatusStream;
+
+    @Autowired
+    private IdempotencyRegistry idempotencyRegistry;
+
+    @Autowired
+    private EventProcessingConfiguration eventProcessingConfiguration;
+
+    @GetMapping("/aggregate-cache")
+    public Map<String, Object> getAggregateCacheStatistics() {
+        return orderCache.getStatistics();
+    }
+
+    @GetMapping("/snapshots")
+    public Map<String, Map<String, Object>> getSnapshotStatistics() {
+        return orderSnapshotTriggerDefinition.getMetrics().getStatistics();
+    }
+
+    @GetMapping("/pending-orders")
+    public Map<String, Object> getPendingOrdersStatistics() {
+        return Collections.singletonMap("pendingOrders", pendingOrdersRegistry.size());
+    }
+
+    @GetMapping("/user-details-prefetch")
+    public Map<String, Object> getUserDetailsPrefetchStatistics() {
+        return userPaymentDetailsPrefetcher.getStatistics();
+    }
+
+    @GetMapping("/user-details-cache")
+    public Map<String, Object> getUserDetailsCacheStatistics() {
+        return userPaymentDetailsCache.getStatistics();
+    }
+
+    @GetMapping("/deadlines")
+    public Map<String, Object> getDeadlineStatistics() {
+        return deadlineManager.getStatistics();
+    }
+
+    @GetMapping("/saga-store")
+    public Map<String, Object> getSagaStoreStatistics() {
+        return sagaStore.getStatistics();
+    }
+
+    @GetMapping("/admission")
+    public Map<String, Object> getAdmissionStatistics() {
+        return orderAdmissionLimiter.getStatistics();
+    }
+
+    @GetMapping("/consistency")
+    public Map<String, Object> getConsistencyStatistics() {
+        return orderProjectionPositionTracker.getStatistics();
+    }
+
+    @GetMapping("/order-stream")
+    public Map<String, Object> getOrderStreamStatistics() {
+        return orderStatusStream.getStatistics();
+    }
+
+    @GetMapping("/idempotency")
+    public Map<String, Object> getIdempotencyStatistics() {
+        return idempotencyRegistry.getStatistics();
+    }
+
+    @GetMapping("/saga-processor")
+    public ResponseEntity<Map<String, Object>> getSagaProcessorStatistics() {
+        return eventProcessingConfiguration.eventProcessor("OrderSagaProcessor", TrackingEventProcessor.class)
+                .map(eventProcessor -> {
+                    Map<Integer, Map<String, Object>> segments = new TreeMap<>();
+                    eventProcessor.processingStatus().forEach((segmentId, status) -> {
+                        Map<String, Object> segment = new LinkedHashMap<>();
+                        segment.put("mask", status.getSegment().getMask());
+                        segment.put("position", status.getCurrentPosition().isPresent() ? status.getCurrentPosition().getAsLong() : null);
+                        segment.put("caughtUp", status.isCaughtUp());
+                        segments.put(segmentId, segment);
+                    });
+                    Map<String, Object> statistics = new LinkedHashMap<>();
+                    statistics.put("threads", eventProcessor.maxCapacity());
+                    statistics.put("activeThreads", eventProcessor.activeProcessorThreads());
+                    statistics.put("segments", segments);
+                    return ResponseEntity.ok(statistics);
+                })
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -0,0 +1,227 @@
+package com.transac.OrdersService.core.sagastore;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableSet;
+import com.transac.core.caching.BoundedLruCache;
+import com.transac.core.unitofwork.UnitOfWorkTasks;
+import org.axonframework.eventhandling.EventTrackerStatus;
+import org.axonframework.eventhandling.EventTrackerStatusChangeListener;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.axonframework.modelling.saga.AssociationValue;
+import org.axonframework.modelling.saga.AssociationValues;
+import org.axonframework.modelling.saga.repository.SagaStore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class IndexedSagaStore implements SagaStore<Object> {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final SagaStore<Object> delegate;
+    private final BoundedLruCache sagaCache;
+    private final Cache<String, Set<String>> associationIndex;
+    // Bumped before every cache change, so a load that raced with a commit never caches what it read
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+
+    private final AtomicLong indexHits = new AtomicLong();
+    private final AtomicLong indexMisses = new AtomicLong();
+    private final AtomicLong sagasInserted = new AtomicLong();
+    private final AtomicLong sagasDeleted = new AtomicLong();
+    private final AtomicLong ownershipInvalidations = new AtomicLong();
+
+    public IndexedSagaStore(SagaStore<Object> delegate, BoundedLruCache sagaCache, long maxIndexSize) {
+        this.delegate = delegate;
+        this.sagaCache = sagaCache;
+        this.associationIndex = CacheBuilder.newBuilder()
+                .maximumSize(maxIndexSize)
+                .build();
+    }
+
+    @Override
+    public Set<String> findSagas(Class<?> sagaType, AssociationValue associationValue) {
+        String key = indexKey(sagaType, associationValue);
+        Set<String> sagaIdentifiers = associationIndex.getIfPresent(key);
+        if(sagaIdentifiers != null) {
+            indexHits.incrementAndGet();
+            return sagaIdentifiers;
+        }
+        indexMisses.incrementAndGet();
+
+        int stripe = stripe(key);
+        long generation = generations.get(stripe);
+        Set<String> loaded = ImmutableSet.copyOf(delegate.findSagas(sagaType, associationValue));
+        if(generation == generations.get(stripe)) {
+            associationIndex.put(key, loaded);
+            if(generation != generations.get(stripe)) {
+                associationIndex.asMap().remove(key, loaded);
+            }
+        }
+        return loaded;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <S> Entry<S> loadSaga(Class<S> sagaType, String sagaIdentifier) {
+        CachedSaga cached = sagaCache.get(sagaIdentifier);
+        if(cached == null) {
+            int stripe = stripe(sagaIdentifier);
+            long generation = generations.get(stripe);
+            Entry<S> entry = delegate.loadSaga(sagaType, sagaIdentifier);
+            if(entry == null) {
+                return null;
+            }
+            cached = new CachedSaga(entry.saga(), ImmutableSet.copyOf(entry.associationValues()));
+            if(generation == generations.get(stripe)) {
+                sagaCache.put(sagaIdentifier, cached);
+                if(generation != generations.get(stripe)) {
+                    sagaCache.remove(sagaIdentifier);
+                }
+            }
+        }
+        // The cached instance is handed out as is, so a rolled back handler must not leave its changes behind
+        if(CurrentUnitOfWork.isStarted()) {
+            CurrentUnitOfWork.get().onRollback(unitOfWork -> evictSaga(sagaIdentifier));
+        }
+        return (Entry<S>) cached;
+    }
+
+    @Override
+    public void insertSaga(Class<?> sagaType, String sagaIdentifier, Object saga, Set<AssociationValue> associationValues) {
+        delegate.insertSaga(sagaType, sagaIdentifier, saga, associationValues);
+        Set<AssociationValue> associations = ImmutableSet.copyOf(associationValues);
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> {
+            sagasInserted.incrementAndGet();
+            cacheSaga(sagaIdentifier, new CachedSaga(saga, associations));
+            associations.forEach(associationValue -> addAssociation(sagaType, associationValue, sagaIdentifier));
+        });
+    }
+
+    @Override
+    public void updateSaga(Class<?> sagaType, String sagaIdentifier, Object saga, AssociationValues associationValues) {
+        delegate.updateSaga(sagaType, sagaIdentifier, saga, associationValues);
+        // The saga repository commits the association changes right after this call, so they are copied now
+        Set<AssociationValue> associations = ImmutableSet.copyOf(associationValues.asSet());
+        Set<AssociationValue> added = ImmutableSet.copyOf(associationValues.addedAssociations());
+        Set<AssociationValue> removed = ImmutableSet.copyOf(associationValues.removedAssociations());
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> {
+            cacheSaga(sagaIdentifier, new CachedSaga(saga, associations));
+            added.forEach(associationValue -> addAssociation(sagaType, associationValue, sagaIdentifier));
+            removed.forEach(associationValue -> removeAssociation(sagaType, associationValue, sagaIdentifier));
+        });
+    }
+
+    @Override
+    public void deleteSaga(Class<?> sagaType, String sagaIdentifier, Set<AssociationValue> associationValues) {
+        delegate.deleteSaga(sagaType, sagaIdentifier, associationValues);
+        Set<AssociationValue> associations = ImmutableSet.copyOf(associationValues);
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> {
+            sagasDeleted.incrementAndGet();
+            evictSaga(sagaIdentifier);
+            associations.forEach(associationValue -> removeAssociation(sagaType, associationValue, sagaIdentifier));
+        });
+    }
+
+    // Another instance may change the sagas of a segment while this one does not own it, so nothing cached survives a claim or release
+    public EventTrackerStatusChangeListener segmentOwnershipListener() {
+        return new EventTrackerStatusChangeListener() {
+            @Override
+            public void onEventTrackerStatusChange(Map<Integer, EventTrackerStatus> updatedTrackerStatus) {
+                if(updatedTrackerStatus.values().stream().anyMatch(status -> status.trackerAdded() || status.trackerRemoved())) {
+                    invalidateAll();
+                }
+            }
+
+            @Override
+            public boolean validatePositions() {
+                return false;
+            }
+        };
+    }
+
+    public void invalidateAll() {
+        for(int stripe = 0; stripe < GENERATION_STRIPES; stripe++) {
+            generations.incrementAndGet(stripe);
+        }
+        sagaCache.removeAll();
+        associationIndex.invalidateAll();
+        ownershipInvalidations.incrementAndGet();
+    }
+
+    public Map<String, Object> getStatistics() {
+        long hits = indexHits.get();
+        long requests = hits + indexMisses.get();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("indexSize", associationIndex.size());
+        statistics.put("indexHits", hits);
+        statistics.put("indexMisses", indexMisses.get());
+        statistics.put("indexHitRate", requests == 0 ? 0d : (double) hits / requests);
+        statistics.put("sagasInserted", sagasInserted.get());
+        statistics.put("sagasDeleted", sagasDeleted.get());
+        statistics.put("ownershipInvalidations", ownershipInvalidations.get());
+        statistics.put("sagaCache", sagaCache.getStatistics());
+        return statistics;
+    }
+
+    private void cacheSaga(String sagaIdentifier, CachedSaga cachedSaga) {
+        generations.incrementAndGet(stripe(sagaIdentifier));
+        sagaCache.put(sagaIdentifier, cachedSaga);
+    }
+
+    private void evictSaga(String sagaIdentifier) {
+        generations.incrementAndGet(stripe(sagaIdentifier));
+        sagaCache.remove(sagaIdentifier);
+    }
+
+    // Only keys that are already indexed are changed, a missing key is loaded in full on its next lookup
+    private void addAssociation(Class<?> sagaType, AssociationValue associationValue, String sagaIdentifier) {
+        String key = indexKey(sagaType, associationValue);
+        generations.incrementAndGet(stripe(key));
+        associationIndex.asMap().computeIfPresent(key, (k, sagaIdentifiers) ->
+                ImmutableSet.<String>builder().addAll(sagaIdentifiers).add(sagaIdentifier).build());
+    }
+
+    private void removeAssociation(Class<?> sagaType, AssociationValue associationValue, String sagaIdentifier) {
+        String key = indexKey(sagaType, associationValue);
+        generations.incrementAndGet(stripe(key));
+        // Keys of ended sagas are dropped, so the index only grows with the number of active sagas
+        associationIndex.asMap().computeIfPresent(key, (k, sagaIdentifiers) -> {
+            Set<String> remaining = ImmutableSet.copyOf(sagaIdentifiers.stream()
+                    .filter(identifier -> !identifier.equals(sagaIdentifier))
+                    .iterator());
+            return remaining.isEmpty() ? null : remaining;
+        });
+    }
+
+    private static String indexKey(Class<?> sagaType, AssociationValue associationValue) {
+        return sagaType.getName() + "|" + associationValue.getKey() + "=" + associationValue.getValue();
+    }
+
+    private static int stripe(String key) {
+        return Math.floorMod(key.hashCode(), GENERATION_STRIPES);
+    }
+
+    private static class CachedSaga implements Entry<Object> {
+        private final Object saga;
+        private final Set<AssociationValue> associationValues;
+
+        CachedSaga(Object saga, Set<AssociationValue> associationValues) {
+            this.saga = saga;
+            this.associationValues = associationValues;
+        }
+
+        @Override
+        public Set<AssociationValue> associationValues() {
+            return associationValues;
+        }
+
+        @Override
+        public Object saga() {
+            return saga;
+        }
+    }
+}
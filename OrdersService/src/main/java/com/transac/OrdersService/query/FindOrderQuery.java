@@ -1,8 +1,15 @@
 package com.transac.OrdersService.query;
 
+import lombok.AllArgsConstructor;
 import lombok.Value;
 
 @Value
+@AllArgsConstructor
 public class FindOrderQuery {
     String orderId;
+    Long minPosition;
+
+    public FindOrderQuery(String orderId) {
+        this(orderId, null);
+    }
 }
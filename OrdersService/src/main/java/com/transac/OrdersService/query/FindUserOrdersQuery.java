@@ -0,0 +1,19 @@
+package com.transac.OrdersService.query;
+
+import com.transac.OrdersService.core.models.OrderStatus;
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+@Builder
+public class FindUserOrdersQuery {
+    String userId;
+    OrderStatus orderStatus;
+    Instant createdFrom;
+    Instant createdTo;
+    String cursor;
+    int pageSize;
+    Long minPosition;
+}
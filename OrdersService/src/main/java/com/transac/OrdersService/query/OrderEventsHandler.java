@@ -7,9 +7,12 @@ import com.transac.OrdersService.core.events.OrderCreatedEvent;
 import com.transac.OrdersService.core.events.OrderRejectedEvent;
 import org.axonframework.config.ProcessingGroup;
 import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventhandling.Timestamp;
 import org.springframework.stereotype.Component;
 import org.springframework.beans.BeanUtils;
 
+import java.time.Instant;
+
 @Component
 @ProcessingGroup("order-group")
 public class OrderEventsHandler {
@@ -21,9 +24,11 @@ public class OrderEventsHandler {
     }
 
     @EventHandler
-    public void on(OrderCreatedEvent event) {
+    public void on(OrderCreatedEvent event, @Timestamp Instant timestamp) {
         OrderEntity orderEntity = new OrderEntity();
         BeanUtils.copyProperties(event, orderEntity);
+        // Taken from the event, so a replay rebuilds the same creation time
+        orderEntity.setCreatedAt(timestamp.toEpochMilli());
         try {
             ordersRepository.save(orderEntity);
         } catch (IllegalArgumentException e) {
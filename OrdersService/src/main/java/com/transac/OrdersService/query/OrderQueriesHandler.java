@@ -3,21 +3,101 @@ package com.transac.OrdersService.query;
 import com.transac.OrdersService.core.data.OrderEntity;
 import com.transac.OrdersService.core.data.OrdersRepository;
 import com.transac.OrdersService.core.models.OrderSummary;
+import com.transac.OrdersService.query.rest.OrderRestModel;
+import com.transac.OrdersService.query.rest.OrdersPageRestModel;
+import com.transac.core.consistency.ProjectionPositionTracker;
 import org.axonframework.queryhandling.QueryHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Component
 public class OrderQueriesHandler {
 
     OrdersRepository ordersRepository;
+    ProjectionPositionTracker orderProjectionPositionTracker;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public OrderQueriesHandler(OrdersRepository ordersRepository) {
+    public OrderQueriesHandler(OrdersRepository ordersRepository, ProjectionPositionTracker orderProjectionPositionTracker,
+                               @Value("${orders.query.default-page-size:20}") int defaultPageSize,
+                               @Value("${orders.query.max-page-size:100}") int maxPageSize) {
         this.ordersRepository = ordersRepository;
+        this.orderProjectionPositionTracker = orderProjectionPositionTracker;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    @QueryHandler
+    public CompletableFuture<OrderSummary> findOrder(FindOrderQuery findOrderQuery) {
+        return orderProjectionPositionTracker.awaitPosition(findOrderQuery.getMinPosition()).thenApply(caughtUp -> {
+            OrderEntity orderEntity = ordersRepository.findByOrderId(findOrderQuery.getOrderId());
+            if(orderEntity == null) {
+                return null;
+            }
+            return new OrderSummary(orderEntity.getOrderId(), orderEntity.getOrderStatus(), "");
+        });
     }
 
     @QueryHandler
-    public OrderSummary findOrder(FindOrderQuery findOrderQuery) {
-        OrderEntity orderEntity = ordersRepository.findByOrderId(findOrderQuery.getOrderId());
-        return new OrderSummary(orderEntity.getOrderId(), orderEntity.getOrderStatus(), "");
+    public CompletableFuture<OrdersPageRestModel> findUserOrders(FindUserOrdersQuery query) {
+        return orderProjectionPositionTracker.awaitPosition(query.getMinPosition()).thenApply(caughtUp -> loadUserOrders(query));
+    }
+
+    private OrdersPageRestModel loadUserOrders(FindUserOrdersQuery query) {
+        int pageSize = query.getPageSize() <= 0 ? defaultPageSize : Math.min(query.getPageSize(), maxPageSize);
+        long createdFrom = query.getCreatedFrom() == null ? 0 : query.getCreatedFrom().toEpochMilli();
+        long createdTo = query.getCreatedTo() == null ? Long.MAX_VALUE : query.getCreatedTo().toEpochMilli();
+
+        // The cursor is the position of the last order on the previous page, newest orders come first
+        long beforeCreatedAt = Long.MAX_VALUE;
+        String beforeOrderId = "";
+        if(query.getCursor() != null) {
+            int separator = query.getCursor().indexOf(':');
+            if(separator <= 0) {
+                throw new IllegalArgumentException("Invalid cursor " + query.getCursor());
+            }
+            try {
+                beforeCreatedAt = Long.parseLong(query.getCursor().substring(0, separator));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Invalid cursor " + query.getCursor());
+            }
+            beforeOrderId = query.getCursor().substring(separator + 1);
+        }
+
+        // Fetch one extra row to find out whether another page follows
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<OrderEntity> storedOrders = query.getOrderStatus() == null
+                ? ordersRepository.findUserPage(query.getUserId(), createdFrom, createdTo, beforeCreatedAt, beforeOrderId, pageRequest)
+                : ordersRepository.findUserPageByStatus(query.getUserId(), query.getOrderStatus(), createdFrom, createdTo,
+                        beforeCreatedAt, beforeOrderId, pageRequest);
+
+        boolean hasNextPage = storedOrders.size() > pageSize;
+        List<OrderRestModel> ordersRest = new ArrayList<>(Math.min(storedOrders.size(), pageSize));
+        for(OrderEntity orderEntity : storedOrders.subList(0, Math.min(storedOrders.size(), pageSize))) {
+            ordersRest.add(toRestModel(orderEntity));
+        }
+        String nextCursor = null;
+        if(hasNextPage) {
+            OrderRestModel lastOrder = ordersRest.get(ordersRest.size() - 1);
+            nextCursor = lastOrder.getCreatedAt().toEpochMilli() + ":" + lastOrder.getOrderId();
+        }
+        return new OrdersPageRestModel(ordersRest, nextCursor);
+    }
+
+    private static OrderRestModel toRestModel(OrderEntity orderEntity) {
+        OrderRestModel orderRestModel = new OrderRestModel();
+        orderRestModel.setOrderId(orderEntity.getOrderId());
+        orderRestModel.setProductId(orderEntity.getProductId());
+        orderRestModel.setQuantity(orderEntity.getQuantity());
+        orderRestModel.setAddressId(orderEntity.getAddressId());
+        orderRestModel.setOrderStatus(orderEntity.getOrderStatus());
+        orderRestModel.setCreatedAt(Instant.ofEpochMilli(orderEntity.getCreatedAt()));
+        return orderRestModel;
     }
 }
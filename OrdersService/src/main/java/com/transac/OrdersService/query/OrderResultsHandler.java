@@ -0,0 +1,77 @@
+package com.transac.OrdersService.query;
+
+import com.transac.OrdersService.core.admission.OrderAdmissionLimiter;
+import com.transac.OrdersService.core.data.OrderEntity;
+import com.transac.OrdersService.core.data.OrdersRepository;
+import com.transac.OrdersService.core.events.OrderApprovedEvent;
+import com.transac.OrdersService.core.events.OrderCreatedEvent;
+import com.transac.OrdersService.core.events.OrderRejectedEvent;
+import com.transac.OrdersService.core.models.OrderSummary;
+import com.transac.core.caching.BoundedLruCache;
+import com.transac.core.unitofwork.UnitOfWorkTasks;
+import org.axonframework.eventhandling.EventHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+// Runs in a processor of its own on every instance, so a waiting request is completed with one map lookup wherever the saga ran
+@Component
+public class OrderResultsHandler {
+
+    private final PendingOrdersRegistry pendingOrdersRegistry;
+    private final OrderAdmissionLimiter orderAdmissionLimiter;
+    private final OrderStatusStream orderStatusStream;
+    private final OrdersRepository ordersRepository;
+    // Users of the orders created since this processor started, the stream filters transitions by user
+    private final BoundedLruCache orderUsers;
+
+    public OrderResultsHandler(PendingOrdersRegistry pendingOrdersRegistry, OrderAdmissionLimiter orderAdmissionLimiter,
+                               OrderStatusStream orderStatusStream, OrdersRepository ordersRepository,
+                               @Value("${orders.stream.order-users-size:10000}") int orderUsersSize) {
+        this.pendingOrdersRegistry = pendingOrdersRegistry;
+        this.orderAdmissionLimiter = orderAdmissionLimiter;
+        this.orderStatusStream = orderStatusStream;
+        this.ordersRepository = ordersRepository;
+        this.orderUsers = new BoundedLruCache(orderUsersSize);
+    }
+
+    @EventHandler
+    public void on(OrderCreatedEvent event) {
+        orderUsers.put(event.getOrderId(), event.getUserId());
+    }
+
+    @EventHandler
+    public void on(OrderApprovedEvent event) {
+        completeAfterCommit(new OrderSummary(event.getOrderId(), event.getOrderStatus(), ""));
+    }
+
+    @EventHandler
+    public void on(OrderRejectedEvent event) {
+        completeAfterCommit(new OrderSummary(event.getOrderId(), event.getOrderStatus(), event.getReason()));
+    }
+
+    // The saga ends with either event, so this is also where the instance that admitted the order frees its slot
+    // and where every instance tells its own stream subscribers
+    private void completeAfterCommit(OrderSummary orderSummary) {
+        String userId = userOf(orderSummary.getOrderId());
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> complete(orderSummary));
+        if(userId != null) {
+            orderStatusStream.publishAfterCommit(userId, orderSummary);
+        }
+    }
+
+    private void complete(OrderSummary orderSummary) {
+        orderAdmissionLimiter.release(orderSummary.getOrderId());
+        pendingOrdersRegistry.complete(orderSummary);
+    }
+
+    // Orders created before this processor started, or evicted since, are looked up in the projection
+    private String userOf(String orderId) {
+        String userId = orderUsers.get(orderId);
+        if(userId != null) {
+            orderUsers.remove(orderId);
+            return userId;
+        }
+        OrderEntity orderEntity = ordersRepository.findByOrderId(orderId);
+        return orderEntity == null ? null : orderEntity.getUserId();
+    }
+}
@@ -0,0 +1,129 @@
+package com.transac.OrdersService.query;
+
+import com.transac.OrdersService.core.models.OrderSummary;
+import com.transac.core.unitofwork.UnitOfWorkTasks;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class OrderStatusStream {
+
+    private final int replayBufferSize;
+    private final int subscriberBufferSize;
+    private final Duration heartbeatInterval;
+
+    private final Deque<Transition> replayBuffer = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    // Seeded from the clock, so ids keep increasing across restarts and an old Last-Event-ID replays the whole buffer
+    private final AtomicLong lastEventId = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong disconnectedSlowSubscribers = new AtomicLong();
+
+    public OrderStatusStream(@Value("${orders.stream.replay-buffer-size:10000}") int replayBufferSize,
+                             @Value("${orders.stream.subscriber-buffer-size:1000}") int subscriberBufferSize,
+                             @Value("${orders.stream.heartbeat-ms:15000}") long heartbeatMillis) {
+        this.replayBufferSize = replayBufferSize;
+        this.subscriberBufferSize = subscriberBufferSize;
+        this.heartbeatInterval = Duration.ofMillis(heartbeatMillis);
+    }
+
+    public void publishAfterCommit(String userId, OrderSummary orderSummary) {
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> publish(userId, orderSummary));
+    }
+
+    public Flux<ServerSentEvent<OrderSummary>> subscribe(String userId, String orderId, Long lastSeenEventId) {
+        Flux<ServerSentEvent<OrderSummary>> transitions = Flux.<Transition>create(sink -> {
+            Subscriber subscriber = new Subscriber(userId, orderId, sink);
+            // Replay and registration happen under the publish lock, so no transition falls between the two
+            synchronized(replayBuffer) {
+                if(lastSeenEventId != null) {
+                    replayBuffer.stream()
+                            .filter(transition -> transition.id > lastSeenEventId && subscriber.matches(transition))
+                            .forEach(sink::next);
+                }
+                subscribers.add(subscriber);
+            }
+            sink.onDispose(() -> subscribers.remove(subscriber));
+        }, FluxSink.OverflowStrategy.BUFFER)
+                // A client that cannot keep up is disconnected and resumes from the replay buffer with its Last-Event-ID
+                .onBackpressureBuffer(subscriberBufferSize, dropped -> disconnectedSlowSubscribers.incrementAndGet())
+                // Writing to the connection happens off the projection thread that publishes
+                .publishOn(Schedulers.boundedElastic())
+                .map(transition -> ServerSentEvent.<OrderSummary>builder()
+                        .id(String.valueOf(transition.id))
+                        .event("order-status")
+                        .data(transition.orderSummary).build());
+        Flux<ServerSentEvent<OrderSummary>> heartbeats = Flux.interval(heartbeatInterval)
+                .map(tick -> ServerSentEvent.<OrderSummary>builder().comment("heartbeat").build());
+        return Flux.merge(transitions, heartbeats);
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("subscribers", subscribers.size());
+        synchronized(replayBuffer) {
+            statistics.put("replayBufferSize", replayBuffer.size());
+        }
+        statistics.put("published", published.get());
+        statistics.put("disconnectedSlowSubscribers", disconnectedSlowSubscribers.get());
+        return statistics;
+    }
+
+    private void publish(String userId, OrderSummary orderSummary) {
+        synchronized(replayBuffer) {
+            Transition transition = new Transition(lastEventId.incrementAndGet(), userId, orderSummary);
+            replayBuffer.addLast(transition);
+            if(replayBuffer.size() > replayBufferSize) {
+                replayBuffer.removeFirst();
+            }
+            for(Subscriber subscriber : subscribers) {
+                if(subscriber.matches(transition)) {
+                    subscriber.sink.next(transition);
+                }
+            }
+        }
+        published.incrementAndGet();
+    }
+
+    private static class Transition {
+        private final long id;
+        private final String userId;
+        private final OrderSummary orderSummary;
+
+        Transition(long id, String userId, OrderSummary orderSummary) {
+            this.id = id;
+            this.userId = userId;
+            this.orderSummary = orderSummary;
+        }
+    }
+
+    private static class Subscriber {
+        private final String userId;
+        private final String orderId;
+        private final FluxSink<Transition> sink;
+
+        Subscriber(String userId, String orderId, FluxSink<Transition> sink) {
+            this.userId = userId;
+            this.orderId = orderId;
+            this.sink = sink;
+        }
+
+        boolean matches(Transition transition) {
+            return (userId == null || userId.equals(transition.userId))
+                    && (orderId == null || orderId.equals(transition.orderSummary.getOrderId()));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.transac.OrdersService.query;
+
+import com.transac.OrdersService.core.models.OrderSummary;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class PendingOrdersRegistry {
+
+    private final Map<String, PendingOrder> pendingOrders = new ConcurrentHashMap<>();
+
+    // Requests waiting for the same order share one future, the entry stays until the last of them is removed
+    public CompletableFuture<OrderSummary> register(String orderId) {
+        return pendingOrders.compute(orderId, (id, pendingOrder) -> {
+            PendingOrder registered = pendingOrder == null ? new PendingOrder() : pendingOrder;
+            registered.waiters++;
+            return registered;
+        }).result;
+    }
+
+    public boolean complete(OrderSummary orderSummary) {
+        PendingOrder pendingOrder = pendingOrders.remove(orderSummary.getOrderId());
+        return pendingOrder != null && pendingOrder.result.complete(orderSummary);
+    }
+
+    public void remove(String orderId, CompletableFuture<OrderSummary> result) {
+        pendingOrders.computeIfPresent(orderId, (id, pendingOrder) ->
+                pendingOrder.result != result || --pendingOrder.waiters > 0 ? pendingOrder : null);
+    }
+
+    public int size() {
+        return pendingOrders.size();
+    }
+
+    private static class PendingOrder {
+        private final CompletableFuture<OrderSummary> result = new CompletableFuture<>();
+        private int waiters;
+    }
+}
@@ -0,0 +1,16 @@
+package com.transac.OrdersService.query.rest;
+
+import com.transac.OrdersService.core.models.OrderStatus;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+public class OrderRestModel {
+    private String orderId;
+    private String productId;
+    private int quantity;
+    private String addressId;
+    private OrderStatus orderStatus;
+    private Instant createdAt;
+}
@@ -0,0 +1,15 @@
+package com.transac.OrdersService.query.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrdersPageRestModel {
+    private List<OrderRestModel> orders;
+    private String nextCursor;
+}
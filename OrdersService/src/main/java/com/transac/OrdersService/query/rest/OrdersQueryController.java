@@ -0,0 +1,80 @@
+package com.transac.OrdersService.query.rest;
+
+import com.transac.OrdersService.core.models.OrderStatus;
+import com.transac.OrdersService.core.models.OrderSummary;
+import com.transac.OrdersService.query.FindOrderQuery;
+import com.transac.OrdersService.query.FindUserOrdersQuery;
+import com.transac.OrdersService.query.OrderStatusStream;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import org.axonframework.messaging.responsetypes.ResponseTypes;
+import org.axonframework.queryhandling.QueryGateway;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/orders")
+public class OrdersQueryController {
+
+    @Autowired
+    QueryGateway queryGateway;
+
+    @Autowired
+    OrderStatusStream orderStatusStream;
+
+    // Reconnecting clients send the id of the last transition they saw and get the ones they missed first.
+    // A stream is scoped to a user or an order, an unfiltered one would carry every order of every user
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<OrderSummary>> streamOrderStatus(@RequestParam(required = false) String userId,
+                                                                 @RequestParam(required = false) String orderId,
+                                                                 @RequestHeader(name = "Last-Event-ID", required = false) Long lastEventId) {
+        if(isBlank(userId) && isBlank(orderId)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "userId or orderId is required");
+        }
+        return orderStatusStream.subscribe(isBlank(userId) ? null : userId, isBlank(orderId) ? null : orderId, lastEventId);
+    }
+
+    @GetMapping("/{orderId}")
+    public CompletableFuture<ResponseEntity<OrderSummary>> getOrder(@PathVariable String orderId,
+                                                                    @RequestHeader(name = ProjectionPositionTracker.CONSISTENCY_TOKEN_HEADER, required = false) Long consistencyToken) {
+        return queryGateway.query(new FindOrderQuery(orderId, consistencyToken), ResponseTypes.instanceOf(OrderSummary.class))
+                .thenApply(orderSummary -> orderSummary == null ? ResponseEntity.notFound().<OrderSummary>build() : ResponseEntity.ok(orderSummary));
+    }
+
+    @GetMapping
+    public CompletableFuture<OrdersPageRestModel> getUserOrders(@RequestParam String userId,
+                                                                @RequestParam(required = false) OrderStatus status,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant from,
+                                                                @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Instant to,
+                                                                @RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "0") int size,
+                                                                @RequestHeader(name = ProjectionPositionTracker.CONSISTENCY_TOKEN_HEADER, required = false) Long consistencyToken) {
+        FindUserOrdersQuery userOrdersQuery = FindUserOrdersQuery.builder()
+                .userId(userId)
+                .orderStatus(status)
+                .createdFrom(from)
+                .createdTo(to)
+                .cursor(cursor)
+                .pageSize(size)
+                .minPosition(consistencyToken).build();
+        return queryGateway.query(userOrdersQuery, ResponseTypes.instanceOf(OrdersPageRestModel.class));
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
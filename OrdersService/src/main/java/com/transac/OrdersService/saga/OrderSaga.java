@@ -5,8 +5,6 @@ import com.transac.OrdersService.command.commands.RejectOrderCommand;
 import com.transac.OrdersService.core.events.OrderApprovedEvent;
 import com.transac.OrdersService.core.events.OrderCreatedEvent;
 import com.transac.OrdersService.core.events.OrderRejectedEvent;
-import com.transac.OrdersService.core.models.OrderSummary;
-import com.transac.OrdersService.query.FindOrderQuery;
 import com.transac.core.commands.CancelProductReservationCommand;
 import com.transac.core.commands.ProcessPaymentCommand;
 import com.transac.core.commands.ReserveProductCommand;
@@ -14,20 +12,16 @@ import com.transac.core.events.PaymentProcessedEvent;
 import com.transac.core.events.ProductReservationCancelledEvent;
 import com.transac.core.events.ProductReservedEvent;
 import com.transac.core.models.User;
-import com.transac.core.query.FetchUserPaymentDetailsQuery;
 import org.axonframework.commandhandling.CommandCallback;
 import org.axonframework.commandhandling.CommandMessage;
 import org.axonframework.commandhandling.CommandResultMessage;
 import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.axonframework.deadline.DeadlineManager;
 import org.axonframework.deadline.annotation.DeadlineHandler;
-import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.modelling.saga.EndSaga;
 import org.axonframework.modelling.saga.SagaEventHandler;
 import org.axonframework.modelling.saga.SagaLifecycle;
 import org.axonframework.modelling.saga.StartSaga;
-import org.axonframework.queryhandling.QueryGateway;
-import org.axonframework.queryhandling.QueryUpdateEmitter;
 import org.axonframework.spring.stereotype.Saga;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,18 +30,15 @@ import org.springframework.beans.factory.annotation.Autowired;
 import java.time.Duration;
 import java.time.temporal.ChronoUnit;
 import java.util.UUID;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CompletableFuture;
 
 @Saga
 public class OrderSaga {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OrderSaga.class);
-    private final String PAYMENT_DEADLINE = "payment-processing-deadline";
+    private static final String PAYMENT_DEADLINE = "payment-processing-deadline";
     private String scheduleId;
 
-    @Autowired
-    private transient QueryGateway queryGateway;
-
     @Autowired
     private transient CommandGateway commandGateway;
 
@@ -55,7 +46,10 @@ public class OrderSaga {
     private transient DeadlineManager deadlineManager;
 
     @Autowired
-    private transient QueryUpdateEmitter queryUpdateEmitter;
+    private transient UserPaymentDetailsPrefetcher userPaymentDetailsPrefetcher;
+
+    @Autowired
+    private transient UserPaymentDetailsCache userPaymentDetailsCache;
 
     @StartSaga
     @SagaEventHandler(associationProperty = "orderId")
@@ -69,6 +63,9 @@ public class OrderSaga {
         LOGGER.info("OrderCreatedEvent handled for orderId: " + reserveProductCommand.getOrderId() +
                 " and productId: " + reserveProductCommand.getProductId());
 
+        // Runs alongside the reservation when enabled, the result is picked up by the ProductReservedEvent handler
+        userPaymentDetailsPrefetcher.prefetch(orderCreatedEvent.getOrderId(), orderCreatedEvent.getUserId());
+
         commandGateway.send(reserveProductCommand, new CommandCallback<ReserveProductCommand, Object>() {
             @Override
             public void onResult(CommandMessage<? extends ReserveProductCommand> commandMessage, CommandResultMessage<?> commandResultMessage) {
@@ -87,52 +84,66 @@ public class OrderSaga {
         LOGGER.info("ProductReservedEvent is called for orderId: " + productReservedEvent.getOrderId() +
                 " and productId: " + productReservedEvent.getProductId());
 
-        FetchUserPaymentDetailsQuery fetchUserPaymentDetailsQuery = new FetchUserPaymentDetailsQuery(productReservedEvent.getUserId());
-        User userPaymentDetails = null;
-
-        try {
-            userPaymentDetails = queryGateway.query(fetchUserPaymentDetailsQuery, ResponseTypes.instanceOf(User.class)).join();
-        } catch (Exception ex) {
-            LOGGER.error(ex.getMessage());
-            // Start compensating transaction
-            cancelProductReservation(productReservedEvent, ex.getMessage());
-            return;
-        }
-
-        if(userPaymentDetails == null) {
-            // Start compensating transaction
-            cancelProductReservation(productReservedEvent, "Could not fetch user payment details");
-            return;
-        }
+        // The deadline is scheduled before any remote call, so it also covers a lookup or payment that never answers
+        scheduleId = deadlineManager.schedule(Duration.of(120, ChronoUnit.SECONDS), PAYMENT_DEADLINE, productReservedEvent);
+        String paymentScheduleId = scheduleId;
+
+        // Remote results arrive as callbacks, the processor thread moves on to the next event right away
+        CompletableFuture<User> userPaymentDetailsResult = userPaymentDetailsPrefetcher.take(productReservedEvent.getOrderId())
+                .orElseGet(() -> userPaymentDetailsCache.get(productReservedEvent.getUserId()));
+        userPaymentDetailsResult.whenComplete((userPaymentDetails, exception) -> {
+            if(exception != null) {
+                LOGGER.error(exception.getMessage());
+                // Start compensating transaction
+                cancelProductReservation(productReservedEvent, paymentScheduleId, exception.getMessage());
+                return;
+            }
 
-        LOGGER.info("Successfully fetched user payment details for user " + userPaymentDetails.getFirstName());
+            if(userPaymentDetails == null) {
+                // Start compensating transaction
+                cancelProductReservation(productReservedEvent, paymentScheduleId, "Could not fetch user payment details");
+                return;
+            }
 
-        scheduleId = deadlineManager.schedule(Duration.of(120, ChronoUnit.SECONDS), PAYMENT_DEADLINE, productReservedEvent);
+            LOGGER.info("Successfully fetched user payment details for user " + userPaymentDetails.getFirstName());
+            processPayment(productReservedEvent, paymentScheduleId, userPaymentDetails);
+        });
+    }
 
+    private void processPayment(ProductReservedEvent productReservedEvent, String paymentScheduleId, User userPaymentDetails) {
         ProcessPaymentCommand processPaymentCommand = ProcessPaymentCommand.builder()
                 .orderId(productReservedEvent.getOrderId())
                 .paymentDetails(userPaymentDetails.getPaymentDetails())
                 .paymentId(UUID.randomUUID().toString()).build();
 
-        String result = null;
-        try {
-            result = commandGateway.sendAndWait(processPaymentCommand);
-        } catch (Exception e) {
-            LOGGER.error(e.getMessage());
-            // Start compensating transaction
-            cancelProductReservation(productReservedEvent, e.getMessage());
-            return;
-        }
+        commandGateway.<String>send(processPaymentCommand).whenComplete((result, exception) -> {
+            if(exception != null) {
+                LOGGER.error(exception.getMessage());
+                // Start compensating transaction
+                cancelProductReservation(productReservedEvent, paymentScheduleId, exception.getMessage());
+                return;
+            }
 
-        if(result == null) {
-            LOGGER.info("The ProcessPaymentCommand resulted in NULL. Initiating a compensating transaction");
-            // Start compensating transaction
-            cancelProductReservation(productReservedEvent, "Could not process payment with provided payment details");
-        }
+            if(result == null) {
+                LOGGER.info("The ProcessPaymentCommand resulted in NULL. Initiating a compensating transaction");
+                // Start compensating transaction
+                cancelProductReservation(productReservedEvent, paymentScheduleId, "Could not process payment with provided payment details");
+            }
+        });
+    }
+
+    // Runs in a callback outside the saga's unit of work, so the deadline is cancelled by id instead of through the saga state
+    private void cancelProductReservation(ProductReservedEvent productReservedEvent, String paymentScheduleId, String reason) {
+        deadlineManager.cancelSchedule(PAYMENT_DEADLINE, paymentScheduleId);
+        sendCancelProductReservation(productReservedEvent, reason);
     }
 
     private void cancelProductReservation(ProductReservedEvent productReservedEvent, String reason) {
         cancelDeadline();
+        sendCancelProductReservation(productReservedEvent, reason);
+    }
+
+    private void sendCancelProductReservation(ProductReservedEvent productReservedEvent, String reason) {
         CancelProductReservationCommand cancelProductReservationCommand = CancelProductReservationCommand.builder()
                 .productId(productReservedEvent.getProductId())
                 .quantity(productReservedEvent.getQuantity())
@@ -162,13 +173,11 @@ public class OrderSaga {
     public void handle(OrderApprovedEvent orderApprovedEvent) {
         LOGGER.info("Order is approved! Order saga is complete for orderId: " + orderApprovedEvent.getOrderId());
         // SagaLifecycle.end();
-        queryUpdateEmitter.emit(FindOrderQuery.class, query -> true,
-                new OrderSummary(orderApprovedEvent.getOrderId(), orderApprovedEvent.getOrderStatus(), "")
-        );
     }
 
     @SagaEventHandler(associationProperty = "orderId")
     public void handle(ProductReservationCancelledEvent productReservationCancelledEvent) {
+        cancelDeadline();
         // Create and send a Reject Order command
         RejectOrderCommand rejectOrderCommand = new RejectOrderCommand(productReservationCancelledEvent.getOrderId(), productReservationCancelledEvent.getReason());
         commandGateway.send(rejectOrderCommand);
@@ -177,10 +186,8 @@ public class OrderSaga {
     @EndSaga
     @SagaEventHandler(associationProperty = "orderId")
     public void handle(OrderRejectedEvent orderRejectedEvent) {
+        userPaymentDetailsPrefetcher.discard(orderRejectedEvent.getOrderId());
         LOGGER.info("Successfully rejected order with id: " + orderRejectedEvent.getOrderId());
-        queryUpdateEmitter.emit(FindOrderQuery.class, query -> true,
-                new OrderSummary(orderRejectedEvent.getOrderId(), orderRejectedEvent.getOrderStatus(), orderRejectedEvent.getReason())
-        );
     }
 
     @DeadlineHandler(deadlineName = PAYMENT_DEADLINE)
@@ -0,0 +1,90 @@
+package com.transac.OrdersService.saga;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.transac.core.models.User;
+import com.transac.core.query.FetchUserPaymentDetailsQuery;
+import org.axonframework.messaging.responsetypes.ResponseTypes;
+import org.axonframework.queryhandling.QueryGateway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UserPaymentDetailsCache {
+
+    private final QueryGateway queryGateway;
+    private final Cache<String, User> cache;
+    private final Map<String, CompletableFuture<User>> inFlight = new ConcurrentHashMap<>();
+
+    private final AtomicLong queries = new AtomicLong();
+    private final AtomicLong joinedLookups = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserPaymentDetailsCache(QueryGateway queryGateway,
+                                   @Value("${orders.user-details-cache.ttl-ms:60000}") long ttlMillis,
+                                   @Value("${orders.user-details-cache.max-size:10000}") long maxSize) {
+        this.queryGateway = queryGateway;
+        this.cache = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+    }
+
+    public CompletableFuture<User> get(String userId) {
+        User user = cache.getIfPresent(userId);
+        if(user != null) {
+            return CompletableFuture.completedFuture(user);
+        }
+
+        // Concurrent lookups for the same user share a single query
+        CompletableFuture<User> lookup = new CompletableFuture<>();
+        CompletableFuture<User> existing = inFlight.putIfAbsent(userId, lookup);
+        if(existing != null) {
+            joinedLookups.incrementAndGet();
+            return existing;
+        }
+
+        queries.incrementAndGet();
+        queryGateway.query(new FetchUserPaymentDetailsQuery(userId), ResponseTypes.instanceOf(User.class)).whenComplete((result, exception) -> {
+            // An invalidation while the query ran removes the in-flight entry, the result is then not cached
+            if(inFlight.remove(userId, lookup) && exception == null && result != null) {
+                cache.put(userId, result);
+            }
+            if(exception != null) {
+                lookup.completeExceptionally(exception);
+            } else {
+                lookup.complete(result);
+            }
+        });
+        return lookup;
+    }
+
+    public void invalidate(String userId) {
+        inFlight.remove(userId);
+        cache.invalidate(userId);
+        invalidations.incrementAndGet();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", cache.size());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("hitRate", stats.hitRate());
+        statistics.put("queries", queries.get());
+        statistics.put("joinedLookups", joinedLookups.get());
+        statistics.put("evictions", stats.evictionCount());
+        statistics.put("invalidations", invalidations.get());
+        return statistics;
+    }
+}
@@ -0,0 +1,98 @@
+package com.transac.OrdersService.saga;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import com.transac.core.models.User;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UserPaymentDetailsPrefetcher {
+
+    private final UserPaymentDetailsCache userPaymentDetailsCache;
+    private final boolean enabled;
+    private final Cache<String, Prefetch> prefetches;
+
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong consumed = new AtomicLong();
+    private final AtomicLong discarded = new AtomicLong();
+    private final AtomicLong expired = new AtomicLong();
+    private final AtomicLong savedNanos = new AtomicLong();
+
+    public UserPaymentDetailsPrefetcher(UserPaymentDetailsCache userPaymentDetailsCache,
+                                        @Value("${orders.saga.prefetch-user-details.enabled:false}") boolean enabled,
+                                        @Value("${orders.saga.prefetch-user-details.ttl-ms:120000}") long ttlMillis,
+                                        @Value("${orders.saga.prefetch-user-details.max-size:10000}") long maxSize) {
+        this.userPaymentDetailsCache = userPaymentDetailsCache;
+        this.enabled = enabled;
+        this.prefetches = CacheBuilder.newBuilder()
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .maximumSize(maxSize)
+                .<String, Prefetch>removalListener(notification -> {
+                    if(notification.getCause() == RemovalCause.EXPIRED || notification.getCause() == RemovalCause.SIZE) {
+                        expired.incrementAndGet();
+                    }
+                })
+                .build();
+    }
+
+    public void prefetch(String orderId, String userId) {
+        if(!enabled) {
+            return;
+        }
+        Prefetch prefetch = new Prefetch(userPaymentDetailsCache.get(userId));
+        prefetches.put(orderId, prefetch);
+        started.incrementAndGet();
+    }
+
+    public Optional<CompletableFuture<User>> take(String orderId) {
+        Prefetch prefetch = prefetches.asMap().remove(orderId);
+        if(prefetch == null) {
+            return Optional.empty();
+        }
+        consumed.incrementAndGet();
+        // The part of the lookup that ran while the product was being reserved is taken off the order's critical path
+        long consumedAt = System.nanoTime();
+        long completedAt = prefetch.completedAt;
+        savedNanos.addAndGet((completedAt > 0 ? Math.min(completedAt, consumedAt) : consumedAt) - prefetch.startedAt);
+        return Optional.of(prefetch.result);
+    }
+
+    public void discard(String orderId) {
+        if(prefetches.asMap().remove(orderId) != null) {
+            discarded.incrementAndGet();
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        long consumedCount = consumed.get();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("pending", prefetches.size());
+        statistics.put("started", started.get());
+        statistics.put("consumed", consumedCount);
+        statistics.put("discarded", discarded.get());
+        statistics.put("expired", expired.get());
+        statistics.put("averageLatencySavedMillis", consumedCount == 0 ? 0d : savedNanos.get() / 1_000_000d / consumedCount);
+        return statistics;
+    }
+
+    private static class Prefetch {
+        private final CompletableFuture<User> result;
+        private final long startedAt = System.nanoTime();
+        private volatile long completedAt;
+
+        Prefetch(CompletableFuture<User> result) {
+            this.result = result;
+            result.whenComplete((user, exception) -> completedAt = System.nanoTime());
+        }
+    }
+}
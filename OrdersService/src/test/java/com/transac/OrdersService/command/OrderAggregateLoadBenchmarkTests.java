@@ -0,0 +1,110 @@
+package com.transac.OrdersService.command;
+
+import com.transac.OrdersService.core.events.OrderApprovedEvent;
+import com.transac.OrdersService.core.events.OrderCreatedEvent;
+import com.transac.OrdersService.core.events.OrderRejectedEvent;
+import com.transac.OrdersService.core.models.OrderStatus;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.EventSourcingRepository;
+import org.axonframework.eventsourcing.eventstore.EmbeddedEventStore;
+import org.axonframework.eventsourcing.eventstore.inmemory.InMemoryEventStorageEngine;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.modelling.command.Aggregate;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class OrderAggregateLoadBenchmarkTests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderAggregateLoadBenchmarkTests.class);
+    private static final String AGGREGATE_TYPE = OrderAggregate.class.getSimpleName();
+    private static final int ORDERS = 2000;
+    private static final int WARMUP_ROUNDS = 2;
+
+    private InMemoryEventStorageEngine storageEngine;
+    private EmbeddedEventStore eventStore;
+    private EventSourcingRepository<OrderAggregate> repository;
+
+    @AfterEach
+    void tearDown() {
+        OrderAggregate.setLeanState(true);
+    }
+
+    // An order has one to three events; every order is loaded from its events and then from a snapshot of the same state, in both state modes
+    @Test
+    void loadTimeAgainstEventCount() {
+        for(boolean leanState : new boolean[] { true, false }) {
+            OrderAggregate.setLeanState(leanState);
+            for(int count = 1; count <= 3; count++) {
+                int eventCount = count;
+                // A fresh store per round, the in-memory engine scans all of its events on every load
+                startEventStore();
+                try {
+                    List<String> orderIds = storeOrders("events-" + eventCount + "-", eventCount);
+                    long fromEvents = measureLoads(orderIds, eventCount);
+
+                    orderIds.forEach(orderId -> storeSnapshot(orderId, eventCount));
+                    long fromSnapshot = measureLoads(orderIds, eventCount);
+
+                    LOGGER.info((leanState ? "Lean" : "Full") + " state, " + eventCount + " events: " + (fromEvents / ORDERS)
+                            + " ns per load from events, " + (fromSnapshot / ORDERS) + " ns per load from a snapshot");
+                } finally {
+                    eventStore.shutDown();
+                }
+            }
+        }
+    }
+
+    private void startEventStore() {
+        storageEngine = new InMemoryEventStorageEngine();
+        eventStore = EmbeddedEventStore.builder().storageEngine(storageEngine).build();
+        repository = EventSourcingRepository.builder(OrderAggregate.class).eventStore(eventStore).build();
+    }
+
+    private List<String> storeOrders(String prefix, int eventCount) {
+        List<String> orderIds = new ArrayList<>(ORDERS);
+        for(int i = 0; i < ORDERS; i++) {
+            String orderId = prefix + i;
+            List<GenericDomainEventMessage<?>> events = new ArrayList<>(eventCount);
+            events.add(new GenericDomainEventMessage<>(AGGREGATE_TYPE, orderId, 0,
+                    new OrderCreatedEvent(orderId, "product-1", "user-1", 1, "address-1", OrderStatus.CREATED)));
+            for(int sequence = 1; sequence < eventCount; sequence++) {
+                Object payload = sequence % 2 == 1 ? new OrderApprovedEvent(orderId) : new OrderRejectedEvent(orderId, "Payment failed");
+                events.add(new GenericDomainEventMessage<>(AGGREGATE_TYPE, orderId, sequence, payload));
+            }
+            storageEngine.appendEvents(events);
+            orderIds.add(orderId);
+        }
+        return orderIds;
+    }
+
+    private void storeSnapshot(String orderId, int eventCount) {
+        OrderAggregate orderAggregate = DefaultUnitOfWork.startAndGet(null)
+                .executeWithResult(() -> repository.load(orderId).invoke(root -> root))
+                .getPayload();
+        storageEngine.storeSnapshot(new GenericDomainEventMessage<>(AGGREGATE_TYPE, orderId, eventCount - 1, orderAggregate));
+    }
+
+    // Returns the total nanoseconds of the measured round, after warm-up rounds over the same orders
+    private long measureLoads(List<String> orderIds, int eventCount) {
+        long elapsedNanos = 0;
+        for(int round = 0; round <= WARMUP_ROUNDS; round++) {
+            long startedAt = System.nanoTime();
+            for(String orderId : orderIds) {
+                Aggregate<OrderAggregate> orderAggregate = DefaultUnitOfWork.startAndGet(null)
+                        .executeWithResult(() -> repository.load(orderId))
+                        .getPayload();
+                assertEquals(orderId, orderAggregate.identifierAsString());
+                assertEquals(Long.valueOf(eventCount - 1), orderAggregate.version());
+            }
+            elapsedNanos = System.nanoTime() - startedAt;
+        }
+        return elapsedNanos;
+    }
+}
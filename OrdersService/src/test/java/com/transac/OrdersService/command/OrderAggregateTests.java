@@ -0,0 +1,95 @@
+package com.transac.OrdersService.command;
+
+import com.transac.OrdersService.command.commands.ApproveOrderCommand;
+import com.transac.OrdersService.command.commands.RejectOrderCommand;
+import com.transac.OrdersService.core.events.OrderApprovedEvent;
+import com.transac.OrdersService.core.events.OrderCreatedEvent;
+import com.transac.OrdersService.core.events.OrderRejectedEvent;
+import com.transac.OrdersService.core.models.OrderStatus;
+import org.axonframework.eventhandling.GenericDomainEventMessage;
+import org.axonframework.eventsourcing.EventSourcingRepository;
+import org.axonframework.eventsourcing.eventstore.EmbeddedEventStore;
+import org.axonframework.eventsourcing.eventstore.inmemory.InMemoryEventStorageEngine;
+import org.axonframework.messaging.ResultMessage;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderAggregateTests {
+
+    private static final String ORDER_ID = "order-1";
+
+    private final InMemoryEventStorageEngine storageEngine = new InMemoryEventStorageEngine();
+    private final EmbeddedEventStore eventStore = EmbeddedEventStore.builder().storageEngine(storageEngine).build();
+    private final EventSourcingRepository<OrderAggregate> repository =
+            EventSourcingRepository.builder(OrderAggregate.class).eventStore(eventStore).build();
+
+    @AfterEach
+    void tearDown() {
+        OrderAggregate.setLeanState(true);
+        eventStore.shutDown();
+    }
+
+    @Test
+    void createdOrdersCanBeApproved() {
+        createOrder();
+
+        assertFalse(execute(order -> order.handle(new ApproveOrderCommand(ORDER_ID))).isExceptional());
+        assertEquals(List.of(OrderCreatedEvent.class, OrderApprovedEvent.class), eventTypes());
+    }
+
+    @Test
+    void repeatedCommandsForTheSameStatusAreIgnored() {
+        createOrder();
+        execute(order -> order.handle(new RejectOrderCommand(ORDER_ID, "Out of stock")));
+
+        assertFalse(execute(order -> order.handle(new RejectOrderCommand(ORDER_ID, "Out of stock"))).isExceptional());
+        assertEquals(List.of(OrderCreatedEvent.class, OrderRejectedEvent.class), eventTypes());
+    }
+
+    @Test
+    void finalOrdersCannotMoveToAnotherStatus() {
+        createOrder();
+        execute(order -> order.handle(new ApproveOrderCommand(ORDER_ID)));
+
+        ResultMessage<?> result = execute(order -> order.handle(new RejectOrderCommand(ORDER_ID, "Payment failed")));
+
+        assertTrue(result.exceptionResult() instanceof IllegalStateException);
+        assertEquals(List.of(OrderCreatedEvent.class, OrderApprovedEvent.class), eventTypes());
+    }
+
+    @Test
+    void fullStateModeKeepsTheTransitionChecks() {
+        OrderAggregate.setLeanState(false);
+        createOrder();
+        execute(order -> order.handle(new ApproveOrderCommand(ORDER_ID)));
+
+        assertTrue(execute(order -> order.handle(new RejectOrderCommand(ORDER_ID, "Payment failed"))).isExceptional());
+    }
+
+    private void createOrder() {
+        storageEngine.appendEvents(new GenericDomainEventMessage<>(OrderAggregate.class.getSimpleName(), ORDER_ID, 0,
+                new OrderCreatedEvent(ORDER_ID, "product-1", "user-1", 1, "address-1", OrderStatus.CREATED)));
+    }
+
+    private ResultMessage<?> execute(Consumer<OrderAggregate> handler) {
+        return DefaultUnitOfWork.startAndGet(null).executeWithResult(() -> {
+            repository.load(ORDER_ID).execute(handler);
+            return null;
+        });
+    }
+
+    private List<Class<?>> eventTypes() {
+        return eventStore.readEvents(ORDER_ID).asStream()
+                .map(event -> (Class<?>) event.getPayloadType())
+                .collect(Collectors.toList());
+    }
+}
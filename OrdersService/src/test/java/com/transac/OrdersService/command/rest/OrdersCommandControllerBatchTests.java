@@ -0,0 +1,99 @@
+package com.transac.OrdersService.command.rest;
+
+import com.transac.OrdersService.command.commands.CreateOrderCommand;
+import com.transac.OrdersService.core.admission.OrderAdmissionLimiter;
+import com.transac.OrdersService.core.models.OrderStatus;
+import com.transac.OrdersService.core.models.OrderSummary;
+import com.transac.OrdersService.query.PendingOrdersRegistry;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.queryhandling.QueryGateway;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrdersCommandControllerBatchTests {
+
+    private final PendingOrdersRegistry pendingOrdersRegistry = new PendingOrdersRegistry();
+    private final CommandGateway commandGateway = mock(CommandGateway.class);
+
+    @Test
+    void eachOrderIsReportedWithItsOutcome() {
+        // Order 0 completes, order 1 is rejected by the command bus, order 2 is accepted but never completes
+        when(commandGateway.send(any())).thenAnswer(invocation -> {
+            CreateOrderCommand createOrderCommand = invocation.getArgument(0);
+            switch(createOrderCommand.getAddressId()) {
+                case "address-0":
+                    pendingOrdersRegistry.complete(new OrderSummary(createOrderCommand.getOrderId(), OrderStatus.APPROVED, ""));
+                    return CompletableFuture.completedFuture(createOrderCommand.getOrderId());
+                case "address-1":
+                    CompletableFuture<Object> failed = new CompletableFuture<>();
+                    failed.completeExceptionally(new IllegalStateException("Product is out of stock"));
+                    return failed;
+                default:
+                    return CompletableFuture.completedFuture(createOrderCommand.getOrderId());
+            }
+        });
+        OrderAdmissionLimiter orderAdmissionLimiter = new OrderAdmissionLimiter(true, 100, 10, 100, 5000, 0.9, 60_000);
+
+        List<BatchOrderResult> results = controller(orderAdmissionLimiter).createOrders(createOrdersRestModel(3))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        results.sort(Comparator.comparingInt(BatchOrderResult::getIndex));
+        assertEquals(BatchOrderOutcome.COMPLETED, results.get(0).getOutcome());
+        assertEquals(OrderStatus.APPROVED, results.get(0).getOrderStatus());
+        assertEquals(BatchOrderOutcome.NOT_ACCEPTED, results.get(1).getOutcome());
+        assertNull(results.get(1).getOrderId());
+        assertNull(results.get(1).getOrderStatus());
+        assertEquals(BatchOrderOutcome.PENDING, results.get(2).getOutcome());
+        assertNotNull(results.get(2).getOrderId());
+        assertNull(results.get(2).getOrderStatus());
+        assertEquals(0, pendingOrdersRegistry.size());
+    }
+
+    @Test
+    void ordersOverTheAdmissionLimitAreNotAccepted() {
+        when(commandGateway.send(any())).thenReturn(new CompletableFuture<>());
+        OrderAdmissionLimiter orderAdmissionLimiter = new OrderAdmissionLimiter(true, 1, 1, 1, 5000, 0.9, 60_000);
+
+        List<BatchOrderResult> results = controller(orderAdmissionLimiter).createOrders(createOrdersRestModel(3))
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertEquals(2, results.stream().filter(result -> result.getOutcome() == BatchOrderOutcome.NOT_ACCEPTED).count());
+        results.stream()
+                .filter(result -> result.getOutcome() == BatchOrderOutcome.NOT_ACCEPTED)
+                .forEach(result -> assertNull(result.getOrderId()));
+    }
+
+    private OrdersCommandController controller(OrderAdmissionLimiter orderAdmissionLimiter) {
+        return new OrdersCommandController(commandGateway, mock(QueryGateway.class), pendingOrdersRegistry, orderAdmissionLimiter,
+                mock(ProjectionPositionTracker.class), mock(IdempotencyRegistry.class), 200, 32);
+    }
+
+    private static CreateOrdersRestModel createOrdersRestModel(int orders) {
+        CreateOrdersRestModel createOrdersRestModel = new CreateOrdersRestModel();
+        createOrdersRestModel.setOrders(IntStream.range(0, orders).mapToObj(i -> {
+            CreateOrderRestModel createOrderRestModel = new CreateOrderRestModel();
+            createOrderRestModel.setProductId("product-1");
+            createOrderRestModel.setQuantity(1);
+            createOrderRestModel.setAddressId("address-" + i);
+            return createOrderRestModel;
+        }).collect(Collectors.toList()));
+        return createOrdersRestModel;
+    }
+}
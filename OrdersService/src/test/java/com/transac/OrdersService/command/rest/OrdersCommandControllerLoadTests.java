@@ -0,0 +1,118 @@
+package com.transac.OrdersService.command.rest;
+
+import com.transac.OrdersService.command.commands.CreateOrderCommand;
+import com.transac.OrdersService.core.admission.OrderAdmissionLimiter;
+import com.transac.OrdersService.core.data.OrdersRepository;
+import com.transac.OrdersService.core.events.OrderApprovedEvent;
+import com.transac.OrdersService.core.models.OrderStatus;
+import com.transac.OrdersService.core.models.OrderSummary;
+import com.transac.OrdersService.query.OrderResultsHandler;
+import com.transac.OrdersService.query.OrderStatusStream;
+import com.transac.OrdersService.query.PendingOrdersRegistry;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.queryhandling.QueryGateway;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class OrdersCommandControllerLoadTests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrdersCommandControllerLoadTests.class);
+    private static final long SAGA_LATENCY_MS = 200;
+
+    private final PendingOrdersRegistry pendingOrdersRegistry = new PendingOrdersRegistry();
+    private final OrderAdmissionLimiter orderAdmissionLimiter = new OrderAdmissionLimiter(true, 5000, 10, 5000, 5000, 0.9, 60_000);
+    private final OrderResultsHandler orderResultsHandler = new OrderResultsHandler(pendingOrdersRegistry, orderAdmissionLimiter,
+            new OrderStatusStream(100, 100, 15_000), mock(OrdersRepository.class), 100);
+    private final CommandGateway commandGateway = mock(CommandGateway.class);
+    private ScheduledExecutorService sagas;
+    private OrdersCommandController controller;
+
+    @BeforeEach
+    void setUp() {
+        // Two threads stand in for the whole saga side, results arrive the way the results processor delivers them
+        sagas = Executors.newScheduledThreadPool(2);
+        ProjectionPositionTracker positionTracker = mock(ProjectionPositionTracker.class);
+        when(positionTracker.headPosition()).thenReturn(42L);
+        when(positionTracker.getExecutor()).thenReturn(Runnable::run);
+        controller = new OrdersCommandController(commandGateway, mock(QueryGateway.class), pendingOrdersRegistry,
+                orderAdmissionLimiter, positionTracker, mock(IdempotencyRegistry.class), 10_000, 32);
+    }
+
+    @AfterEach
+    void tearDown() {
+        sagas.shutdownNow();
+    }
+
+    @Test
+    void inFlightOrdersAreNotBoundByRequestThreads() throws Exception {
+        when(commandGateway.send(any())).thenAnswer(invocation -> {
+            String orderId = ((CreateOrderCommand) invocation.getArgument(0)).getOrderId();
+            sagas.schedule(() -> orderResultsHandler.on(new OrderApprovedEvent(orderId)), SAGA_LATENCY_MS, TimeUnit.MILLISECONDS);
+            return CompletableFuture.completedFuture(orderId);
+        });
+
+        int orders = 2000;
+        long startedAt = System.nanoTime();
+        List<CompletableFuture<ResponseEntity<OrderSummary>>> responses = new ArrayList<>(orders);
+        // A single request thread submits every order; none of them holds it while its saga runs
+        for(int i = 0; i < orders; i++) {
+            responses.add(controller.createOrder(null, createOrderRestModel()));
+        }
+        int inFlight = pendingOrdersRegistry.size();
+        CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get(30, TimeUnit.SECONDS);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        for(CompletableFuture<ResponseEntity<OrderSummary>> response : responses) {
+            assertEquals(OrderStatus.APPROVED, response.get().getBody().getOrderStatus());
+            assertEquals("42", response.get().getHeaders().getFirst(ProjectionPositionTracker.CONSISTENCY_TOKEN_HEADER));
+        }
+        assertTrue(inFlight > 1, "orders were not in flight concurrently");
+        assertEquals(0, pendingOrdersRegistry.size());
+        assertEquals(0, orderAdmissionLimiter.getStatistics().get("inFlight"));
+        LOGGER.info(orders + " orders with " + SAGA_LATENCY_MS + " ms saga latency completed in " + elapsedMillis
+                + " ms on 1 request thread, " + inFlight + " in flight after submission");
+    }
+
+    @Test
+    void failedCommandCompletesRequestAndReleasesItsSlot() {
+        CompletableFuture<Object> failedCommand = new CompletableFuture<>();
+        failedCommand.completeExceptionally(new IllegalStateException("Product is out of stock"));
+        when(commandGateway.send(any())).thenReturn(failedCommand);
+
+        CompletableFuture<ResponseEntity<OrderSummary>> response = controller.createOrder(null, createOrderRestModel());
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> response.get(1, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof IllegalStateException);
+        assertEquals(0, pendingOrdersRegistry.size());
+        assertEquals(0, orderAdmissionLimiter.getStatistics().get("inFlight"));
+    }
+
+    private static CreateOrderRestModel createOrderRestModel() {
+        CreateOrderRestModel createOrderRestModel = new CreateOrderRestModel();
+        createOrderRestModel.setProductId("product-1");
+        createOrderRestModel.setQuantity(1);
+        createOrderRestModel.setAddressId("address-1");
+        return createOrderRestModel;
+    }
+}
@@ -0,0 +1,88 @@
+package com.transac.OrdersService.core.admission;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderAdmissionLimiterTests {
+
+    @Test
+    void ordersOverTheLimitAreRejectedUntilASagaEnds() {
+        OrderAdmissionLimiter limiter = new OrderAdmissionLimiter(true, 2, 1, 2, 5000, 0.5, 60_000);
+
+        assertTrue(limiter.tryAcquire("order-1"));
+        assertTrue(limiter.tryAcquire("order-2"));
+        assertFalse(limiter.tryAcquire("order-3"));
+
+        limiter.release("order-1");
+        assertTrue(limiter.tryAcquire("order-3"));
+        assertEquals(1L, limiter.getStatistics().get("rejected"));
+    }
+
+    @Test
+    void disabledLimiterAdmitsEveryOrder() {
+        OrderAdmissionLimiter limiter = new OrderAdmissionLimiter(false, 1, 1, 1, 5000, 0.5, 60_000);
+
+        assertTrue(limiter.tryAcquire("order-1"));
+        assertTrue(limiter.tryAcquire("order-2"));
+        assertEquals(2, limiter.getStatistics().get("inFlight"));
+    }
+
+    @Test
+    void releaseOfOrderAdmittedElsewhereIsIgnored() {
+        OrderAdmissionLimiter limiter = new OrderAdmissionLimiter(true, 2, 1, 2, 5000, 0.5, 60_000);
+        limiter.tryAcquire("order-1");
+
+        limiter.release("order-2");
+        limiter.release("order-1");
+        limiter.release("order-1");
+
+        assertEquals(0, limiter.getStatistics().get("inFlight"));
+    }
+
+    @Test
+    void slowSagaLowersTheLimit() {
+        OrderAdmissionLimiter limiter = new OrderAdmissionLimiter(true, 10, 1, 10, 0, 0.5, 60_000);
+        limiter.tryAcquire("order-1");
+
+        limiter.release("order-1");
+
+        assertEquals(5, limiter.getStatistics().get("limit"));
+        assertEquals(1L, limiter.getStatistics().get("limitDecreases"));
+    }
+
+    @Test
+    void busySagasWithinTargetRaiseTheLimit() {
+        OrderAdmissionLimiter limiter = new OrderAdmissionLimiter(true, 2, 1, 10, 5000, 0.5, 60_000);
+        limiter.tryAcquire("order-1");
+        limiter.tryAcquire("order-2");
+
+        limiter.release("order-1");
+
+        assertEquals(3, limiter.getStatistics().get("limit"));
+    }
+
+    @Test
+    void discardedOrderFreesItsSlotWithoutChangingTheLimit() {
+        OrderAdmissionLimiter limiter = new OrderAdmissionLimiter(true, 1, 1, 10, 0, 0.5, 60_000);
+        limiter.tryAcquire("order-1");
+
+        limiter.discard("order-1");
+
+        assertTrue(limiter.tryAcquire("order-2"));
+        assertEquals(1, limiter.getStatistics().get("limit"));
+        assertEquals(0L, limiter.getStatistics().get("limitDecreases"));
+    }
+
+    @Test
+    void sagaWhoseEndWasNeverSeenExpires() {
+        OrderAdmissionLimiter limiter = new OrderAdmissionLimiter(true, 1, 1, 1, 5000, 0.5, 0);
+        limiter.tryAcquire("order-1");
+
+        assertTrue(limiter.tryAcquire("order-2"));
+        assertEquals(1L, limiter.getStatistics().get("expired"));
+        assertEquals(1, limiter.getStatistics().get("inFlight"));
+    }
+}
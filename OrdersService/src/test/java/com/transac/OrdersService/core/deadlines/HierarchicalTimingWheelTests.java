@@ -0,0 +1,88 @@
+package com.transac.OrdersService.core.deadlines;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HierarchicalTimingWheelTests {
+
+    private static final long TICK = 10;
+    private static final int WHEEL_SIZE = 8;
+
+    @Test
+    void timerDueWithinCurrentTickIsReturnedToCaller() {
+        HierarchicalTimingWheel timingWheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, 0);
+
+        assertFalse(timingWheel.add(new HierarchicalTimingWheel.Timer("due", 5)));
+    }
+
+    @Test
+    void timerFiresWhenItsBucketExpires() {
+        HierarchicalTimingWheel timingWheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, 0);
+        assertTrue(timingWheel.add(new HierarchicalTimingWheel.Timer("a", 35)));
+
+        assertTrue(timingWheel.advance(29).isEmpty());
+        assertEquals(List.of("a"), ids(timingWheel.advance(30)));
+        assertTrue(timingWheel.advance(100).isEmpty());
+    }
+
+    @Test
+    void timerBeyondFirstWheelIsCascadedFromOverflowWheel() {
+        HierarchicalTimingWheel timingWheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, 0);
+        assertTrue(timingWheel.add(new HierarchicalTimingWheel.Timer("b", 500)));
+
+        assertTrue(timingWheel.advance(480).isEmpty());
+        assertTrue(timingWheel.advance(499).isEmpty());
+        assertEquals(List.of("b"), ids(timingWheel.advance(500)));
+    }
+
+    @Test
+    void cancelledTimerIsDropped() {
+        HierarchicalTimingWheel timingWheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, 0);
+        HierarchicalTimingWheel.Timer timer = new HierarchicalTimingWheel.Timer("c", 50);
+        timingWheel.add(timer);
+        timer.cancel();
+
+        assertTrue(timingWheel.advance(1000).isEmpty());
+    }
+
+    @Test
+    void everyTimerFiresOnceWithinItsTick() {
+        HierarchicalTimingWheel timingWheel = new HierarchicalTimingWheel(TICK, WHEEL_SIZE, 0);
+        Random random = new Random(42);
+        Map<String, Long> expirations = new HashMap<>();
+        for(int i = 0; i < 2000; i++) {
+            long expiration = TICK + random.nextInt(20_000);
+            String id = "t" + i;
+            expirations.put(id, expiration);
+            assertTrue(timingWheel.add(new HierarchicalTimingWheel.Timer(id, expiration)));
+        }
+
+        Map<String, Long> firedAt = new HashMap<>();
+        for(long now = 0; now <= 20_000 + TICK; now += TICK) {
+            for(HierarchicalTimingWheel.Timer timer : timingWheel.advance(now)) {
+                assertEquals(null, firedAt.put(timer.getId(), now), "Timer " + timer.getId() + " fired twice");
+            }
+        }
+
+        assertEquals(expirations.keySet(), firedAt.keySet());
+        expirations.forEach((id, expiration) -> {
+            long fired = firedAt.get(id);
+            assertTrue(fired <= expiration && fired > expiration - TICK, "Timer " + id + " due at " + expiration + " fired at " + fired);
+        });
+    }
+
+    private static List<String> ids(List<HierarchicalTimingWheel.Timer> timers) {
+        List<String> ids = new ArrayList<>();
+        timers.forEach(timer -> ids.add(timer.getId()));
+        return ids;
+    }
+}
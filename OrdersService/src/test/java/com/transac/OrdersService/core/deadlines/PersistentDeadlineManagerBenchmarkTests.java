@@ -0,0 +1,95 @@
+package com.transac.OrdersService.core.deadlines;
+
+import com.transac.OrdersService.core.data.DeadlinesRepository;
+import org.axonframework.common.transaction.NoTransactionManager;
+import org.axonframework.messaging.ScopeAwareProvider;
+import org.axonframework.modelling.saga.SagaScopeDescriptor;
+import org.axonframework.serialization.xml.XStreamSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+class PersistentDeadlineManagerBenchmarkTests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PersistentDeadlineManagerBenchmarkTests.class);
+    private static final int TIMERS = 200_000;
+    private static final int DEADLINES = 20_000;
+    private static final int WARMUP_ROUNDS = 2;
+
+    // Stub only, so the repository does not record every call of the measured rounds
+    private final DeadlinesRepository deadlinesRepository = mock(DeadlinesRepository.class, withSettings().stubOnly());
+    private final PersistentDeadlineManager deadlineManager = new PersistentDeadlineManager(
+            mock(ScopeAwareProvider.class), NoTransactionManager.INSTANCE, XStreamSerializer.defaultSerializer(),
+            deadlinesRepository, 100, 512, 600_000, 60_000, 500, 60_000, 1, 1000, 60_000);
+
+    @AfterEach
+    void tearDown() {
+        deadlineManager.shutdown();
+    }
+
+    // Timers spread over two hours, so most of them go to the overflow wheels
+    @Test
+    void timingWheelScheduleAndCancelThroughput() {
+        long scheduleNanos = 0;
+        long cancelNanos = 0;
+        for(int round = 0; round <= WARMUP_ROUNDS; round++) {
+            HierarchicalTimingWheel timingWheel = new HierarchicalTimingWheel(100, 512, 0);
+            List<HierarchicalTimingWheel.Timer> timers = new ArrayList<>(TIMERS);
+            for(int i = 0; i < TIMERS; i++) {
+                timers.add(new HierarchicalTimingWheel.Timer("t" + i, 100 + (i * 37L) % 7_200_000));
+            }
+
+            long startedAt = System.nanoTime();
+            for(HierarchicalTimingWheel.Timer timer : timers) {
+                assertTrue(timingWheel.add(timer));
+            }
+            scheduleNanos = System.nanoTime() - startedAt;
+
+            startedAt = System.nanoTime();
+            timers.forEach(HierarchicalTimingWheel.Timer::cancel);
+            cancelNanos = System.nanoTime() - startedAt;
+
+            assertTrue(timingWheel.advance(7_200_000).isEmpty());
+        }
+        LOGGER.info("Timing wheel: " + perSecond(TIMERS, scheduleNanos) + " schedules/s, "
+                + perSecond(TIMERS, cancelNanos) + " cancels/s");
+    }
+
+    // Includes serializing each deadline, the repository itself is stubbed
+    @Test
+    void deadlineManagerScheduleAndCancelThroughput() {
+        SagaScopeDescriptor scope = new SagaScopeDescriptor("OrderSaga", "saga-1");
+        long scheduleNanos = 0;
+        long cancelNanos = 0;
+        for(int round = 0; round <= WARMUP_ROUNDS; round++) {
+            List<String> scheduleIds = new ArrayList<>(DEADLINES);
+            long startedAt = System.nanoTime();
+            for(int i = 0; i < DEADLINES; i++) {
+                scheduleIds.add(deadlineManager.schedule(Duration.ofSeconds(120), "payment-processing-deadline", "order-" + i, scope));
+            }
+            scheduleNanos = System.nanoTime() - startedAt;
+            assertEquals(DEADLINES, deadlineManager.getStatistics().get("inMemory"));
+
+            startedAt = System.nanoTime();
+            scheduleIds.forEach(scheduleId -> deadlineManager.cancelSchedule("payment-processing-deadline", scheduleId));
+            cancelNanos = System.nanoTime() - startedAt;
+            assertEquals(0, deadlineManager.getStatistics().get("inMemory"));
+        }
+        LOGGER.info("Deadline manager: " + perSecond(DEADLINES, scheduleNanos) + " schedules/s, "
+                + perSecond(DEADLINES, cancelNanos) + " cancels/s");
+    }
+
+    private static long perSecond(int operations, long nanos) {
+        return operations * 1_000_000_000L / Math.max(1, nanos);
+    }
+}
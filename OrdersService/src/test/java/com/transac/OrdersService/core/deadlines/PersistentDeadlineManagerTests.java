@@ -0,0 +1,72 @@
+package com.transac.OrdersService.core.deadlines;
+
+import com.transac.OrdersService.core.data.DeadlinesRepository;
+import org.axonframework.common.transaction.NoTransactionManager;
+import org.axonframework.messaging.ScopeAwareProvider;
+import org.axonframework.serialization.xml.XStreamSerializer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.atLeast;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PersistentDeadlineManagerTests {
+
+    private final DeadlinesRepository deadlinesRepository = mock(DeadlinesRepository.class);
+    private PersistentDeadlineManager deadlineManager;
+
+    @AfterEach
+    void tearDown() {
+        deadlineManager.shutdown();
+    }
+
+    @Test
+    void theLoaderStartsOverOnceTheRescanIntervalHasPassed() {
+        long triggerTime = stubOneUpcomingDeadline();
+        deadlineManager = deadlineManager(100);
+
+        deadlineManager.start();
+
+        verify(deadlinesRepository, timeout(2000).atLeast(2)).findUpcoming(eq(Long.MIN_VALUE), eq(""), anyLong(), any());
+        verify(deadlinesRepository, atLeast(1)).findUpcoming(eq(triggerTime), eq("deadline-1"), anyLong(), any());
+        // Loaded again on every rescan, but put on the wheel once
+        assertEquals(1, deadlineManager.getStatistics().get("inMemory"));
+    }
+
+    @Test
+    void theLoaderOtherwiseResumesAfterTheLastLoadedRow() {
+        long triggerTime = stubOneUpcomingDeadline();
+        deadlineManager = deadlineManager(600_000);
+
+        deadlineManager.start();
+
+        verify(deadlinesRepository, timeout(2000).atLeast(3)).findUpcoming(eq(triggerTime), eq("deadline-1"), anyLong(), any());
+        verify(deadlinesRepository, after(100).times(1)).findUpcoming(eq(Long.MIN_VALUE), eq(""), anyLong(), any());
+    }
+
+    private long stubOneUpcomingDeadline() {
+        long triggerTime = System.currentTimeMillis() + 30_000;
+        DeadlinesRepository.ScheduledDeadline deadline = mock(DeadlinesRepository.ScheduledDeadline.class);
+        when(deadline.getScheduleId()).thenReturn("deadline-1");
+        when(deadline.getTriggerTime()).thenReturn(triggerTime);
+        when(deadlinesRepository.findUpcoming(eq(Long.MIN_VALUE), eq(""), anyLong(), any())).thenReturn(List.of(deadline));
+        when(deadlinesRepository.findUpcoming(eq(triggerTime), eq("deadline-1"), anyLong(), any())).thenReturn(List.of());
+        return triggerTime;
+    }
+
+    private PersistentDeadlineManager deadlineManager(long rescanIntervalMillis) {
+        return new PersistentDeadlineManager(mock(ScopeAwareProvider.class), NoTransactionManager.INSTANCE,
+                XStreamSerializer.defaultSerializer(), deadlinesRepository, 100, 512, 60_000, 20, 500, rescanIntervalMillis, 1, 1000, 60_000);
+    }
+}
@@ -0,0 +1,126 @@
+package com.transac.OrdersService.core.sagastore;
+
+import com.transac.core.caching.BoundedLruCache;
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.axonframework.modelling.saga.AssociationValue;
+import org.axonframework.modelling.saga.AssociationValuesImpl;
+import org.axonframework.modelling.saga.repository.inmemory.InMemorySagaStore;
+import org.junit.jupiter.api.Test;
+
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class IndexedSagaStoreTests {
+
+    private static final AssociationValue ORDER = new AssociationValue("orderId", "order-1");
+    private static final AssociationValue PAYMENT = new AssociationValue("paymentId", "payment-1");
+
+    private final InMemorySagaStore delegate = spy(new InMemorySagaStore());
+    private final IndexedSagaStore sagaStore = new IndexedSagaStore(delegate, new BoundedLruCache(100), 100);
+    private final TestSaga saga = new TestSaga();
+
+    @Test
+    void associationLookupsAreServedFromTheIndex() {
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+
+        assertEquals(Set.of("saga-1"), sagaStore.findSagas(TestSaga.class, ORDER));
+        assertEquals(Set.of("saga-1"), sagaStore.findSagas(TestSaga.class, ORDER));
+
+        verify(delegate, times(1)).findSagas(TestSaga.class, ORDER);
+        assertEquals(1L, sagaStore.getStatistics().get("indexHits"));
+    }
+
+    @Test
+    void insertedSagasJoinIndexedAssociations() {
+        assertEquals(Set.of(), sagaStore.findSagas(TestSaga.class, ORDER));
+
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+
+        assertEquals(Set.of("saga-1"), sagaStore.findSagas(TestSaga.class, ORDER));
+        verify(delegate, times(1)).findSagas(TestSaga.class, ORDER);
+    }
+
+    @Test
+    void updatedAssociationsAreIndexed() {
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+        assertEquals(Set.of(), sagaStore.findSagas(TestSaga.class, PAYMENT));
+
+        AssociationValuesImpl associationValues = new AssociationValuesImpl(Set.of(ORDER));
+        associationValues.add(PAYMENT);
+        associationValues.remove(ORDER);
+        sagaStore.updateSaga(TestSaga.class, "saga-1", saga, associationValues);
+
+        assertEquals(Set.of("saga-1"), sagaStore.findSagas(TestSaga.class, PAYMENT));
+        assertEquals(Set.of(), sagaStore.findSagas(TestSaga.class, ORDER));
+    }
+
+    @Test
+    void deletedSagasLeaveTheCacheAndTheIndex() {
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+        sagaStore.findSagas(TestSaga.class, ORDER);
+
+        sagaStore.deleteSaga(TestSaga.class, "saga-1", Set.of(ORDER));
+
+        assertEquals(Set.of(), sagaStore.findSagas(TestSaga.class, ORDER));
+        assertNull(sagaStore.loadSaga(TestSaga.class, "saga-1"));
+        assertEquals(1L, sagaStore.getStatistics().get("sagasDeleted"));
+    }
+
+    @Test
+    void loadedSagasAreCached() {
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+        sagaStore.invalidateAll();
+
+        TestSaga loaded = sagaStore.loadSaga(TestSaga.class, "saga-1").saga();
+
+        assertSame(loaded, sagaStore.loadSaga(TestSaga.class, "saga-1").saga());
+        verify(delegate, times(1)).loadSaga(TestSaga.class, "saga-1");
+    }
+
+    @Test
+    void changesOnlyReachTheCacheOnCommit() {
+        UnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+        assertEquals(0L, sagaStore.getStatistics().get("sagasInserted"));
+
+        unitOfWork.commit();
+        assertEquals(1L, sagaStore.getStatistics().get("sagasInserted"));
+        sagaStore.loadSaga(TestSaga.class, "saga-1");
+        verify(delegate, times(0)).loadSaga(TestSaga.class, "saga-1");
+    }
+
+    @Test
+    void sagasLoadedByARolledBackHandlerAreEvicted() {
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+
+        UnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        sagaStore.loadSaga(TestSaga.class, "saga-1");
+        unitOfWork.rollback();
+
+        sagaStore.loadSaga(TestSaga.class, "saga-1");
+        verify(delegate, times(1)).loadSaga(TestSaga.class, "saga-1");
+    }
+
+    @Test
+    void invalidateAllDropsEverythingCached() {
+        sagaStore.insertSaga(TestSaga.class, "saga-1", saga, Set.of(ORDER));
+        sagaStore.findSagas(TestSaga.class, ORDER);
+
+        sagaStore.invalidateAll();
+        sagaStore.findSagas(TestSaga.class, ORDER);
+        sagaStore.loadSaga(TestSaga.class, "saga-1");
+
+        verify(delegate, times(2)).findSagas(TestSaga.class, ORDER);
+        verify(delegate, times(1)).loadSaga(TestSaga.class, "saga-1");
+    }
+
+    private static class TestSaga {
+    }
+}
@@ -0,0 +1,51 @@
+package com.transac.OrdersService.query;
+
+import com.transac.OrdersService.core.admission.OrderAdmissionLimiter;
+import com.transac.OrdersService.core.data.OrderEntity;
+import com.transac.OrdersService.core.data.OrdersRepository;
+import com.transac.OrdersService.core.events.OrderApprovedEvent;
+import com.transac.OrdersService.core.events.OrderCreatedEvent;
+import com.transac.OrdersService.core.events.OrderRejectedEvent;
+import com.transac.OrdersService.core.models.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OrderResultsHandlerTests {
+
+    private final OrderStatusStream orderStatusStream = new OrderStatusStream(100, 100, 15_000);
+    private final OrdersRepository ordersRepository = mock(OrdersRepository.class);
+    private final OrderResultsHandler handler = new OrderResultsHandler(new PendingOrdersRegistry(),
+            new OrderAdmissionLimiter(true, 5000, 10, 5000, 5000, 0.9, 60_000), orderStatusStream, ordersRepository, 100);
+
+    @Test
+    void ordersCreatedOnThisProcessorArePublishedWithoutTheProjection() {
+        handler.on(new OrderCreatedEvent("order-1", "product-1", "user-1", 1, "address-1", OrderStatus.CREATED));
+        handler.on(new OrderApprovedEvent("order-1"));
+
+        assertEquals(1L, orderStatusStream.getStatistics().get("published"));
+        verify(ordersRepository, never()).findByOrderId("order-1");
+    }
+
+    @Test
+    void olderOrdersTakeTheirUserFromTheProjection() {
+        OrderEntity orderEntity = new OrderEntity();
+        orderEntity.setUserId("user-2");
+        when(ordersRepository.findByOrderId("order-2")).thenReturn(orderEntity);
+
+        handler.on(new OrderRejectedEvent("order-2", "Out of stock"));
+
+        assertEquals(1L, orderStatusStream.getStatistics().get("published"));
+    }
+
+    @Test
+    void unknownOrdersAreNotPublished() {
+        handler.on(new OrderApprovedEvent("order-3"));
+
+        assertEquals(0L, orderStatusStream.getStatistics().get("published"));
+    }
+}
@@ -0,0 +1,107 @@
+package com.transac.OrdersService.query;
+
+import com.transac.OrdersService.core.models.OrderStatus;
+import com.transac.OrdersService.core.models.OrderSummary;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PendingOrdersRegistryTests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PendingOrdersRegistryTests.class);
+
+    @Test
+    void completeRoutesResultToWaitingRequest() {
+        PendingOrdersRegistry registry = new PendingOrdersRegistry();
+        CompletableFuture<OrderSummary> result = registry.register("order-1");
+        OrderSummary orderSummary = new OrderSummary("order-1", OrderStatus.APPROVED, "");
+
+        assertTrue(registry.complete(orderSummary));
+        assertSame(orderSummary, result.getNow(null));
+        assertEquals(0, registry.size());
+    }
+
+    @Test
+    void completeWithoutWaitingRequestIsIgnored() {
+        PendingOrdersRegistry registry = new PendingOrdersRegistry();
+
+        assertFalse(registry.complete(new OrderSummary("order-1", OrderStatus.APPROVED, "")));
+    }
+
+    @Test
+    void entryStaysUntilLastWaitingRequestIsRemoved() {
+        PendingOrdersRegistry registry = new PendingOrdersRegistry();
+        CompletableFuture<OrderSummary> first = registry.register("order-1");
+        CompletableFuture<OrderSummary> second = registry.register("order-1");
+        assertSame(first, second);
+
+        registry.remove("order-1", first);
+        assertEquals(1, registry.size());
+        assertTrue(registry.complete(new OrderSummary("order-1", OrderStatus.REJECTED, "Out of stock")));
+        assertEquals(OrderStatus.REJECTED, second.getNow(null).getOrderStatus());
+    }
+
+    @Test
+    void removingStaleFutureLeavesNewEntryAlone() {
+        PendingOrdersRegistry registry = new PendingOrdersRegistry();
+        CompletableFuture<OrderSummary> stale = registry.register("order-1");
+        registry.complete(new OrderSummary("order-1", OrderStatus.APPROVED, ""));
+        registry.register("order-1");
+
+        registry.remove("order-1", stale);
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    void routesConcurrentResultsToTheirRequests() throws Exception {
+        int threads = 8;
+        int ordersPerThread = 50_000;
+        PendingOrdersRegistry registry = new PendingOrdersRegistry();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            long startedAt = System.nanoTime();
+            List<Future<Integer>> completed = new ArrayList<>();
+            for(int thread = 0; thread < threads; thread++) {
+                String prefix = "order-" + thread + "-";
+                completed.add(executor.submit(() -> {
+                    int routed = 0;
+                    for(int i = 0; i < ordersPerThread; i++) {
+                        String orderId = prefix + i;
+                        CompletableFuture<OrderSummary> result = registry.register(orderId);
+                        registry.complete(new OrderSummary(orderId, OrderStatus.APPROVED, ""));
+                        registry.remove(orderId, result);
+                        if(orderId.equals(result.getNow(null).getOrderId())) {
+                            routed++;
+                        }
+                    }
+                    return routed;
+                }));
+            }
+            int routed = 0;
+            for(Future<Integer> future : completed) {
+                routed += future.get(60, TimeUnit.SECONDS);
+            }
+            long elapsedNanos = System.nanoTime() - startedAt;
+
+            assertEquals(threads * ordersPerThread, routed);
+            assertEquals(0, registry.size());
+            LOGGER.info("Routed " + routed + " order results in " + TimeUnit.NANOSECONDS.toMillis(elapsedNanos) + " ms, "
+                    + (routed * 1_000_000_000L / Math.max(elapsedNanos, 1)) + " results/s");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
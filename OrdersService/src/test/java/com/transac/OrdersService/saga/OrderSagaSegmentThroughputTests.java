@@ -0,0 +1,141 @@
+package com.transac.OrdersService.saga;
+
+import com.transac.OrdersService.core.events.OrderApprovedEvent;
+import com.transac.OrdersService.core.events.OrderCreatedEvent;
+import com.transac.OrdersService.core.models.OrderStatus;
+import com.transac.OrdersService.core.sagastore.IndexedSagaStore;
+import com.transac.core.caching.BoundedLruCache;
+import com.transac.core.events.ProductReservedEvent;
+import org.axonframework.config.Configuration;
+import org.axonframework.config.DefaultConfigurer;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.GenericEventMessage;
+import org.axonframework.eventhandling.TrackingEventProcessor;
+import org.axonframework.eventhandling.TrackingEventProcessorConfiguration;
+import org.axonframework.eventsourcing.eventstore.inmemory.InMemoryEventStorageEngine;
+import org.axonframework.modelling.saga.EndSaga;
+import org.axonframework.modelling.saga.SagaEventHandler;
+import org.axonframework.modelling.saga.StartSaga;
+import org.axonframework.modelling.saga.repository.inmemory.InMemorySagaStore;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderSagaSegmentThroughputTests {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OrderSagaSegmentThroughputTests.class);
+    private static final String PROCESSOR = "ThroughputSagaProcessor";
+    private static final int ORDERS = 300;
+
+    private static final AtomicInteger outOfOrder = new AtomicInteger();
+    private static volatile CountDownLatch ended;
+
+    // Every saga step waits about a millisecond, like the command round trips of OrderSaga, so the run is bound by the segment count
+    @Test
+    void sagaThroughputScalesWithSegments() throws InterruptedException {
+        double oneSegment = sagasPerSecond(1);
+        double twoSegments = sagasPerSecond(2);
+        double fourSegments = sagasPerSecond(4);
+
+        LOGGER.info("Sagas per second: 1 segment " + (long) oneSegment + ", 2 segments " + (long) twoSegments
+                + ", 4 segments " + (long) fourSegments);
+        assertEquals(0, outOfOrder.get());
+        assertTrue(fourSegments > oneSegment * 2, "4 segments ran " + fourSegments + " sagas/s against " + oneSegment + " on one");
+    }
+
+    // Runs the saga processor configured the way OrdersServiceApplication does, over the indexed saga store
+    private static double sagasPerSecond(int segments) throws InterruptedException {
+        IndexedSagaStore sagaStore = new IndexedSagaStore(new InMemorySagaStore(), new BoundedLruCache(ORDERS), ORDERS * 3);
+        Configuration configuration = DefaultConfigurer.defaultConfiguration()
+                .configureEmbeddedEventStore(c -> new InMemoryEventStorageEngine())
+                .eventProcessing(processing -> processing
+                        .registerSaga(ThroughputSaga.class, saga -> saga.configureSagaStore(c -> sagaStore))
+                        .registerTrackingEventProcessor(PROCESSOR, Configuration::eventStore, c ->
+                                TrackingEventProcessorConfiguration.forParallelProcessing(segments)
+                                        .andInitialSegmentsCount(segments)
+                                        .andEventTrackerStatusChangeListener(sagaStore.segmentOwnershipListener())))
+                .start();
+        try {
+            awaitClaimedSegments(configuration, segments);
+            ended = new CountDownLatch(ORDERS);
+
+            List<EventMessage<?>> events = new ArrayList<>(ORDERS * 3);
+            for(int i = 0; i < ORDERS; i++) {
+                String orderId = "order-" + segments + "-" + i;
+                events.add(GenericEventMessage.asEventMessage(
+                        new OrderCreatedEvent(orderId, "product-1", "user-1", 1, "address-1", OrderStatus.CREATED)));
+                events.add(GenericEventMessage.asEventMessage(ProductReservedEvent.builder()
+                        .orderId(orderId).productId("product-1").userId("user-1").quantity(1).build()));
+                events.add(GenericEventMessage.asEventMessage(new OrderApprovedEvent(orderId)));
+            }
+
+            long startedAt = System.nanoTime();
+            configuration.eventStore().publish(events);
+            assertTrue(ended.await(60, TimeUnit.SECONDS), ended.getCount() + " sagas did not end with " + segments + " segments");
+            return ORDERS * 1_000_000_000d / (System.nanoTime() - startedAt);
+        } finally {
+            configuration.shutdown();
+        }
+    }
+
+    private static void awaitClaimedSegments(Configuration configuration, int segments) throws InterruptedException {
+        TrackingEventProcessor eventProcessor = configuration.eventProcessingConfiguration()
+                .eventProcessor(PROCESSOR, TrackingEventProcessor.class)
+                .orElseThrow(IllegalStateException::new);
+        long deadline = System.currentTimeMillis() + 30_000;
+        while(eventProcessor.processingStatus().size() < segments) {
+            assertTrue(System.currentTimeMillis() < deadline, "Segments were not claimed in time");
+            Thread.sleep(10);
+        }
+    }
+
+    public static class ThroughputSaga {
+
+        private int step;
+
+        @StartSaga
+        @SagaEventHandler(associationProperty = "orderId")
+        public void handle(OrderCreatedEvent event) {
+            work();
+            step = 1;
+        }
+
+        @SagaEventHandler(associationProperty = "orderId")
+        public void handle(ProductReservedEvent event) {
+            work();
+            moveTo(2);
+        }
+
+        @EndSaga
+        @SagaEventHandler(associationProperty = "orderId")
+        public void handle(OrderApprovedEvent event) {
+            work();
+            moveTo(3);
+            ended.countDown();
+        }
+
+        private void moveTo(int nextStep) {
+            if(step != nextStep - 1) {
+                outOfOrder.incrementAndGet();
+            }
+            step = nextStep;
+        }
+
+        private static void work() {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
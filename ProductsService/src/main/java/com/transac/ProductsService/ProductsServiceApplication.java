@@ -1,22 +1,64 @@
 package com.transac.ProductsService;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.transac.ProductsService.command.interceptors.CreateProductCommandInterceptor;
+import com.transac.ProductsService.command.interceptors.ShardedInventoryCommandInterceptor;
+import com.transac.ProductsService.command.ProductAggregate;
+import com.transac.ProductsService.command.ProductInventoryShardRegistryEventsHandler;
+import com.transac.ProductsService.command.ProductUniquenessIndex;
+import com.transac.ProductsService.command.ProductUniquenessIndexEventsHandler;
 import com.transac.ProductsService.core.errorhandling.ProductsServiceEventsErrorHandler;
+import com.transac.ProductsService.core.eventprocessing.ProductSequencingPolicy;
+import com.transac.ProductsService.core.eventstore.CompressingSerializer;
+import com.transac.ProductsService.core.eventstore.SnapshotPruningJob;
+import com.transac.ProductsService.core.eventstore.SnapshotRetainingJpaEventStorageEngine;
+import com.transac.ProductsService.core.eventstore.SnapshotStoreMetrics;
+import com.transac.ProductsService.query.ProductsQueryCacheEventsHandler;
+import com.transac.core.caching.BoundedLruCache;
+import com.transac.core.consistency.ProcessorTokenReader;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
+import com.transac.core.idempotency.JpaIdempotencyStore;
+import com.transac.core.snapshotting.AdaptiveSnapshotTriggerDefinition;
 import org.axonframework.commandhandling.CommandBus;
+import org.axonframework.common.jdbc.PersistenceExceptionResolver;
+import org.axonframework.common.jpa.EntityManagerProvider;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.config.Configuration;
+import org.axonframework.config.EventProcessingConfiguration;
 import org.axonframework.config.EventProcessingConfigurer;
 import org.axonframework.eventhandling.PropagatingErrorHandler;
-import org.axonframework.eventsourcing.EventCountSnapshotTriggerDefinition;
-import org.axonframework.eventsourcing.SnapshotTriggerDefinition;
+import org.axonframework.eventhandling.TrackingEventProcessorConfiguration;
+import org.axonframework.eventhandling.tokenstore.inmemory.InMemoryTokenStore;
+import org.axonframework.eventhandling.tokenstore.jpa.TokenEntry;
 import org.axonframework.eventsourcing.Snapshotter;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.axonframework.eventsourcing.eventstore.jdbc.JdbcSQLErrorCodesResolver;
+import org.axonframework.eventsourcing.eventstore.jpa.DomainEventEntry;
+import org.axonframework.eventsourcing.eventstore.jpa.JpaEventStorageEngine;
+import org.axonframework.messaging.StreamableMessageSource;
+import org.axonframework.modelling.saga.repository.jpa.SagaEntry;
+import org.axonframework.serialization.Serializer;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.cloud.netflix.eureka.EnableEurekaClient;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 
+import java.time.Duration;
+import java.util.UUID;
+
 @EnableEurekaClient
 @SpringBootApplication
+// The idempotency keys table is mapped in core, and an explicit scan replaces the default one, so Axon's entities are listed too
+@EntityScan(basePackageClasses = { ProductsServiceApplication.class, JpaIdempotencyStore.class,
+		DomainEventEntry.class, TokenEntry.class, SagaEntry.class })
 public class ProductsServiceApplication {
 
 	public static void main(String[] args) {
@@ -26,17 +68,122 @@ public class ProductsServiceApplication {
 	@Autowired
 	public void registerCreateProductCommandInterceptor(ApplicationContext context, CommandBus commandBus) {
 		commandBus.registerDispatchInterceptor(context.getBean(CreateProductCommandInterceptor.class));
+		commandBus.registerHandlerInterceptor(context.getBean(ShardedInventoryCommandInterceptor.class));
 	}
 
 	@Autowired
-	public void configure(EventProcessingConfigurer config) {
+	public void configure(EventProcessingConfigurer config,
+						  @Value("${products.replay.max-segments:4}") int maxReplaySegments,
+						  @Value("${products.event-processor.batch-size:100}") int batchSize,
+						  ObjectProvider<ProductUniquenessIndex> productUniquenessIndex) {
 		config.registerListenerInvocationErrorHandler("product-group", conf -> new ProductsServiceEventsErrorHandler());
 //		config.registerListenerInvocationErrorHandler("product-group", conf -> PropagatingErrorHandler.instance());
+		// One segment in normal operation, spare threads pick up the segments split off during a replay
+		config.registerTrackingEventProcessorConfiguration("product-group", conf ->
+				TrackingEventProcessorConfiguration.forParallelProcessing(maxReplaySegments)
+						.andInitialSegmentsCount(1)
+						.andBatchSize(batchSize));
+		// Bucket events are published under the bucket id, sequencing on the product id keeps a product's events on one segment
+		config.registerSequencingPolicy("product-group", conf -> new ProductSequencingPolicy());
+
+		// Inventory transfers must not be dropped, a failed one is retried by the processor instead of logged and skipped.
+		// Started at the head, releases from before transfers were split were received in the same unit of work
+		config.registerListenerInvocationErrorHandler("product-inventory-transfers", conf -> PropagatingErrorHandler.instance());
+		config.registerTrackingEventProcessorConfiguration("product-inventory-transfers", conf ->
+				TrackingEventProcessorConfiguration.forSingleThreadedProcessing()
+						.andInitialTrackingToken(StreamableMessageSource::createHeadToken));
+
+		// Each instance gets a processor of its own for its in-memory index, shard registry and page cache, the shared processors run on one instance only.
+		// It starts where the uniqueness index warm-up read the lookup table and never stores its token
+		String instanceProcessor = "product-instance-" + UUID.randomUUID();
+		config.assignHandlerTypesMatching(instanceProcessor, type ->
+				type == ProductUniquenessIndexEventsHandler.class || type == ProductInventoryShardRegistryEventsHandler.class
+						|| type == ProductsQueryCacheEventsHandler.class);
+		config.registerTokenStore(instanceProcessor, conf -> new InMemoryTokenStore());
+		config.registerTrackingEventProcessorConfiguration(instanceProcessor, conf ->
+				TrackingEventProcessorConfiguration.forSingleThreadedProcessing()
+						.andInitialTrackingToken(source -> productUniquenessIndex.getObject().warmUp())
+						.andEventTrackerStatusChangeListener(productUniquenessIndex.getObject().catchUpListener()));
 	}
 
 	@Bean(name = "productSnapshotTriggerDefinition")
-	public SnapshotTriggerDefinition productSnapshotTriggerDefinition(Snapshotter snapshotter) {
-		return new EventCountSnapshotTriggerDefinition(snapshotter, 6);
-		// Creating snapshot itself is considered as 1 event
+	public AdaptiveSnapshotTriggerDefinition productSnapshotTriggerDefinition(Snapshotter snapshotter,
+							@Value("${products.snapshot.load-time-target-ms:50}") long loadTimeTargetMillis,
+							@Value("${products.snapshot.min-events:6}") int minEvents,
+							@Value("${products.snapshot.max-events:500}") int maxEvents) {
+		// Snapshot once loading gets slow, or after max-events regardless of how fast loading is
+		return AdaptiveSnapshotTriggerDefinition.builder()
+				.snapshotter(snapshotter)
+				.loadTimeTarget(ProductAggregate.class, Duration.ofMillis(loadTimeTargetMillis))
+				.minEventsBetweenSnapshots(minEvents)
+				.maxEventsBetweenSnapshots(maxEvents)
+				.build();
+	}
+
+	@Bean(name = "productCache")
+	public BoundedLruCache productCache(@Value("${products.aggregate-cache.max-size:1000}") int maxSize) {
+		return new BoundedLruCache(maxSize);
+	}
+
+	@Bean
+	public ProcessorTokenReader processorTokenReader(EntityManagerProvider entityManagerProvider, TransactionManager transactionManager,
+							Serializer serializer) {
+		return new ProcessorTokenReader(entityManagerProvider, transactionManager, serializer);
+	}
+
+	@Bean(name = "productProjectionPositionTracker")
+	public ProjectionPositionTracker productProjectionPositionTracker(EventProcessingConfiguration eventProcessingConfiguration, EventStore eventStore,
+							ProcessorTokenReader processorTokenReader,
+							@Value("${products.consistency.poll-interval-ms:10}") long pollIntervalMillis,
+							@Value("${products.consistency.wait-timeout-ms:5000}") long waitTimeoutMillis,
+							@Value("${products.consistency.executor-threads:8}") int executorThreads,
+							@Value("${products.consistency.executor-queue-capacity:1000}") int executorQueueCapacity) {
+		return new ProjectionPositionTracker("product-group", eventProcessingConfiguration, eventStore, processorTokenReader,
+				pollIntervalMillis, waitTimeoutMillis, executorThreads, executorQueueCapacity);
+	}
+
+	@Bean
+	public JpaIdempotencyStore idempotencyStore(EntityManagerProvider entityManagerProvider, TransactionManager transactionManager,
+							ObjectMapper objectMapper,
+							@Value("${products.idempotency.purge-interval-ms:60000}") long purgeIntervalMillis) {
+		return new JpaIdempotencyStore(entityManagerProvider, transactionManager, objectMapper, purgeIntervalMillis);
+	}
+
+	@Bean
+	public IdempotencyRegistry idempotencyRegistry(JpaIdempotencyStore idempotencyStore,
+							@Value("${products.idempotency.ttl-ms:86400000}") long ttlMillis,
+							@Value("${products.idempotency.cache-size:10000}") int cacheSize) {
+		return new IdempotencyRegistry(idempotencyStore, Duration.ofMillis(ttlMillis), cacheSize);
+	}
+
+	// Only used with the embedded JPA event store, Axon Server manages its own snapshot storage
+	@Bean
+	@ConditionalOnProperty(name = "axon.axonserver.enabled", havingValue = "false")
+	public SnapshotRetainingJpaEventStorageEngine eventStorageEngine(Serializer defaultSerializer,
+							@Qualifier("eventSerializer") Serializer eventSerializer,
+							Configuration configuration,
+							EntityManagerProvider entityManagerProvider,
+							TransactionManager transactionManager,
+							@Value("${products.snapshot.store.keep:2}") int snapshotsToKeep,
+							@Value("${products.snapshot.store.compression-min-bytes:512}") int compressionMinBytes,
+							@Value("${products.snapshot.store.hash-cache-size:10000}") long hashCacheSize) {
+		SnapshotStoreMetrics metrics = new SnapshotStoreMetrics();
+		PersistenceExceptionResolver persistenceExceptionResolver = new JdbcSQLErrorCodesResolver();
+		return new SnapshotRetainingJpaEventStorageEngine(JpaEventStorageEngine.builder()
+				.snapshotSerializer(new CompressingSerializer(defaultSerializer, compressionMinBytes, metrics))
+				.upcasterChain(configuration.upcasterChain())
+				.persistenceExceptionResolver(persistenceExceptionResolver)
+				.eventSerializer(eventSerializer)
+				.snapshotFilter(configuration.snapshotFilter())
+				.entityManagerProvider(entityManagerProvider),
+				transactionManager, snapshotsToKeep, hashCacheSize, metrics);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "axon.axonserver.enabled", havingValue = "false")
+	public SnapshotPruningJob snapshotPruningJob(SnapshotRetainingJpaEventStorageEngine eventStorageEngine,
+							@Value("${products.snapshot.store.prune-interval-ms:60000}") long pruneIntervalMillis,
+							@Value("${products.snapshot.store.prune-batch-size:100}") int pruneBatchSize) {
+		return new SnapshotPruningJob(eventStorageEngine, pruneIntervalMillis, pruneBatchSize);
 	}
 }
@@ -15,4 +15,5 @@ public class CreateProductCommand {
     private final String title;
     private final BigDecimal price;
     private final int quantity;
+    private final int inventoryBuckets;
 }
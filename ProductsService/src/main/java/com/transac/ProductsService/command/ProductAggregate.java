@@ -1,6 +1,7 @@
 package com.transac.ProductsService.command;
 
 import com.transac.ProductsService.core.events.ProductCreatedEvent;
+import com.transac.ProductsService.core.events.ProductInventoryShardedEvent;
 import com.transac.core.commands.CancelProductReservationCommand;
 import com.transac.core.commands.ReserveProductCommand;
 import com.transac.core.events.ProductReservationCancelledEvent;
@@ -14,19 +15,22 @@ import org.springframework.beans.BeanUtils;
 
 import java.math.BigDecimal;
 
-@Aggregate(snapshotTriggerDefinition = "productSnapshotTriggerDefinition")
+@Aggregate(snapshotTriggerDefinition = "productSnapshotTriggerDefinition", cache = "productCache")
 public class ProductAggregate {
 
+    private static final int MAX_INVENTORY_BUCKETS = 16;
+
     @AggregateIdentifier
     private String productId;
     private String title;
     private BigDecimal price;
     private int quantity;
+    private int inventoryBuckets;
 
     public ProductAggregate() {}
 
     @CommandHandler
-    public ProductAggregate(CreateProductCommand createProductCommand) {
+    public ProductAggregate(CreateProductCommand createProductCommand) throws Exception {
         if(createProductCommand.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
             throw new IllegalArgumentException("Price cannot be less than or equal to zero!");
         }
@@ -37,10 +41,29 @@ public class ProductAggregate {
         ProductCreatedEvent productCreatedEvent = new ProductCreatedEvent();
         BeanUtils.copyProperties(createProductCommand, productCreatedEvent);
         AggregateLifecycle.apply(productCreatedEvent);
+
+        if(createProductCommand.getInventoryBuckets() > 1) {
+            // Events applied in the constructor are handled after it returns, so the state cannot be read yet
+            shardInventory(createProductCommand.getProductId(), createProductCommand.getQuantity(), createProductCommand.getInventoryBuckets());
+        }
+    }
+
+    @CommandHandler
+    public void handle(ShardProductInventoryCommand shardProductInventoryCommand) throws Exception {
+        if(inventoryBuckets > 1) {
+            throw new IllegalStateException(String.format("Inventory of product %s is already sharded", productId));
+        }
+        if(shardProductInventoryCommand.getInventoryBuckets() < 2 || shardProductInventoryCommand.getInventoryBuckets() > MAX_INVENTORY_BUCKETS) {
+            throw new IllegalArgumentException("Inventory must be sharded into 2 to " + MAX_INVENTORY_BUCKETS + " buckets");
+        }
+        shardInventory(productId, quantity, shardProductInventoryCommand.getInventoryBuckets());
     }
 
     @CommandHandler
     public void handle(ReserveProductCommand reserveProductCommand) {
+        if(inventoryBuckets > 1) {
+            throw new ProductInventoryShardedException(productId, inventoryBuckets);
+        }
         if(quantity < reserveProductCommand.getQuantity()) {
             throw new IllegalArgumentException("Insufficient number of items in stock");
         }
@@ -55,6 +78,9 @@ public class ProductAggregate {
 
     @CommandHandler
     public void handle(CancelProductReservationCommand cancelProductReservationCommand) {
+        if(inventoryBuckets > 1) {
+            throw new ProductInventoryShardedException(productId, inventoryBuckets);
+        }
         ProductReservationCancelledEvent productReservationCancelledEvent = ProductReservationCancelledEvent.builder()
                 .productId(cancelProductReservationCommand.getProductId())
                 .orderId(cancelProductReservationCommand.getOrderId())
@@ -72,6 +98,28 @@ public class ProductAggregate {
         this.quantity = productCreatedEvent.getQuantity();
     }
 
+    private void shardInventory(String productId, int quantity, int buckets) throws Exception {
+        ProductInventoryShardedEvent productInventoryShardedEvent = ProductInventoryShardedEvent.builder()
+                .productId(productId)
+                .inventoryBuckets(buckets)
+                .quantity(quantity).build();
+        AggregateLifecycle.apply(productInventoryShardedEvent);
+
+        for(int bucket = 0; bucket < buckets; bucket++) {
+            String bucketId = ProductInventoryBucketAggregate.bucketId(productId, bucket);
+            int bucketQuantity = quantity / buckets + (bucket < quantity % buckets ? 1 : 0);
+            AggregateLifecycle.createNew(ProductInventoryBucketAggregate.class,
+                    () -> new ProductInventoryBucketAggregate(bucketId, productId, bucketQuantity));
+        }
+    }
+
+    @EventSourcingHandler
+    public void on(ProductInventoryShardedEvent productInventoryShardedEvent) {
+        // The stock now lives in the bucket aggregates
+        this.inventoryBuckets = productInventoryShardedEvent.getInventoryBuckets();
+        this.quantity = 0;
+    }
+
     @EventSourcingHandler
     public void on(ProductReservedEvent productReservedEvent) {
         this.quantity -= productReservedEvent.getQuantity();
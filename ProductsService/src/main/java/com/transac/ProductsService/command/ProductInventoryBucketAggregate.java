@@ -0,0 +1,145 @@
+package com.transac.ProductsService.command;
+
+import com.transac.ProductsService.core.events.ProductInventoryBucketCreatedEvent;
+import com.transac.ProductsService.core.events.ProductInventoryReceivedEvent;
+import com.transac.ProductsService.core.events.ProductInventoryReleasedEvent;
+import com.transac.core.commands.CancelProductReservationCommand;
+import com.transac.core.commands.ReserveProductCommand;
+import com.transac.core.events.ProductReservationCancelledEvent;
+import com.transac.core.events.ProductReservedEvent;
+import org.axonframework.commandhandling.CommandHandler;
+import org.axonframework.eventsourcing.EventSourcingHandler;
+import org.axonframework.modelling.command.AggregateIdentifier;
+import org.axonframework.modelling.command.AggregateLifecycle;
+import org.axonframework.spring.stereotype.Aggregate;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+@Aggregate(snapshotTriggerDefinition = "productSnapshotTriggerDefinition", cache = "productCache")
+public class ProductInventoryBucketAggregate {
+
+    private static final int RECEIVED_TRANSFERS_TO_KEEP = 64;
+
+    @AggregateIdentifier
+    private String bucketId;
+    private String productId;
+    private int quantity;
+    // Transfers are delivered at least once, the last ones received are kept to drop redeliveries
+    private Set<String> receivedTransfers;
+
+    public ProductInventoryBucketAggregate() {}
+
+    public ProductInventoryBucketAggregate(String bucketId, String productId, int quantity) {
+        ProductInventoryBucketCreatedEvent productInventoryBucketCreatedEvent = ProductInventoryBucketCreatedEvent.builder()
+                .bucketId(bucketId)
+                .productId(productId)
+                .quantity(quantity).build();
+        AggregateLifecycle.apply(productInventoryBucketCreatedEvent);
+    }
+
+    public static String bucketId(String productId, int bucket) {
+        return productId + ":" + bucket;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    public void reserve(ReserveProductCommand reserveProductCommand) {
+        if(quantity < reserveProductCommand.getQuantity()) {
+            throw new IllegalArgumentException("Insufficient number of items in stock");
+        }
+
+        // Published for the product, so the projection and the order saga do not see the buckets
+        ProductReservedEvent productReservedEvent = ProductReservedEvent.builder()
+                .orderId(reserveProductCommand.getOrderId())
+                .productId(productId)
+                .quantity(reserveProductCommand.getQuantity())
+                .userId(reserveProductCommand.getUserId()).build();
+        AggregateLifecycle.apply(productReservedEvent);
+    }
+
+    public void cancelReservation(CancelProductReservationCommand cancelProductReservationCommand) {
+        ProductReservationCancelledEvent productReservationCancelledEvent = ProductReservationCancelledEvent.builder()
+                .productId(productId)
+                .orderId(cancelProductReservationCommand.getOrderId())
+                .userId(cancelProductReservationCommand.getUserId())
+                .quantity(cancelProductReservationCommand.getQuantity())
+                .reason(cancelProductReservationCommand.getReason()).build();
+        AggregateLifecycle.apply(productReservationCancelledEvent);
+    }
+
+    @CommandHandler
+    public void handle(ReleaseProductInventoryCommand releaseProductInventoryCommand) {
+        // Half of the stock at least, so the dry bucket does not run dry again on the next reservation
+        int transfer = Math.min(quantity, Math.max(releaseProductInventoryCommand.getQuantity(), quantity / 2));
+        if(transfer <= 0) {
+            return;
+        }
+
+        ProductInventoryReleasedEvent productInventoryReleasedEvent = ProductInventoryReleasedEvent.builder()
+                .bucketId(bucketId)
+                .productId(productId)
+                .targetBucketId(releaseProductInventoryCommand.getTargetBucketId())
+                .quantity(transfer)
+                .transferId(releaseProductInventoryCommand.getTransferId()).build();
+        AggregateLifecycle.apply(productInventoryReleasedEvent);
+    }
+
+    @CommandHandler
+    public void handle(ReceiveProductInventoryCommand receiveProductInventoryCommand) {
+        if(receivedTransfers().contains(receiveProductInventoryCommand.getTransferId())) {
+            return;
+        }
+
+        ProductInventoryReceivedEvent productInventoryReceivedEvent = ProductInventoryReceivedEvent.builder()
+                .bucketId(bucketId)
+                .productId(productId)
+                .sourceBucketId(receiveProductInventoryCommand.getSourceBucketId())
+                .quantity(receiveProductInventoryCommand.getQuantity())
+                .transferId(receiveProductInventoryCommand.getTransferId()).build();
+        AggregateLifecycle.apply(productInventoryReceivedEvent);
+    }
+
+    @EventSourcingHandler
+    public void on(ProductInventoryBucketCreatedEvent productInventoryBucketCreatedEvent) {
+        this.bucketId = productInventoryBucketCreatedEvent.getBucketId();
+        this.productId = productInventoryBucketCreatedEvent.getProductId();
+        this.quantity = productInventoryBucketCreatedEvent.getQuantity();
+    }
+
+    @EventSourcingHandler
+    public void on(ProductReservedEvent productReservedEvent) {
+        this.quantity -= productReservedEvent.getQuantity();
+    }
+
+    @EventSourcingHandler
+    public void on(ProductReservationCancelledEvent productReservationCancelledEvent) {
+        this.quantity += productReservationCancelledEvent.getQuantity();
+    }
+
+    @EventSourcingHandler
+    public void on(ProductInventoryReleasedEvent productInventoryReleasedEvent) {
+        this.quantity -= productInventoryReleasedEvent.getQuantity();
+    }
+
+    @EventSourcingHandler
+    public void on(ProductInventoryReceivedEvent productInventoryReceivedEvent) {
+        this.quantity += productInventoryReceivedEvent.getQuantity();
+        if(productInventoryReceivedEvent.getTransferId() != null) {
+            receivedTransfers().add(productInventoryReceivedEvent.getTransferId());
+            if(receivedTransfers.size() > RECEIVED_TRANSFERS_TO_KEEP) {
+                receivedTransfers.remove(receivedTransfers.iterator().next());
+            }
+        }
+    }
+
+    // Snapshots taken before transfers were tracked do not contain the set
+    private Set<String> receivedTransfers() {
+        if(receivedTransfers == null) {
+            receivedTransfers = new LinkedHashSet<>();
+        }
+        return receivedTransfers;
+    }
+}
@@ -0,0 +1,117 @@
+package com.transac.ProductsService.command;
+
+import com.transac.core.commands.CancelProductReservationCommand;
+import com.transac.core.commands.ReserveProductCommand;
+import com.transac.core.unitofwork.UnitOfWorkTasks;
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.modelling.command.Aggregate;
+import org.axonframework.modelling.command.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+public class ProductInventoryBuckets {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductInventoryBuckets.class);
+
+    private final Repository<ProductInventoryBucketAggregate> bucketRepository;
+    private final CommandGateway commandGateway;
+    private final int lowWaterMark;
+    private final long transferIntervalMillis;
+    // Transfers are sent from a thread of their own, outside of the unit of work that holds the lock of the dry bucket
+    private final ExecutorService transferExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-transfers");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public ProductInventoryBuckets(@Lazy @Qualifier("productInventoryBucketAggregateRepository")
+                                           Repository<ProductInventoryBucketAggregate> bucketRepository,
+                                   @Lazy CommandGateway commandGateway,
+                                   @Value("${products.inventory.low-water-mark:10}") int lowWaterMark,
+                                   @Value("${products.inventory.transfer-interval-ms:1000}") long transferIntervalMillis) {
+        this.bucketRepository = bucketRepository;
+        this.commandGateway = commandGateway;
+        this.lowWaterMark = lowWaterMark;
+        this.transferIntervalMillis = transferIntervalMillis;
+    }
+
+    // Only the selected bucket is loaded, so a reservation never holds the locks of two buckets
+    public void reserve(ProductInventoryShardRegistry.ShardedInventory inventory, ReserveProductCommand reserveProductCommand) throws Exception {
+        String productId = reserveProductCommand.getProductId();
+        int quantity = reserveProductCommand.getQuantity();
+        int target = inventory.selectForReservation(quantity);
+        Aggregate<ProductInventoryBucketAggregate> bucket = load(productId, target);
+        int available = bucket.invoke(ProductInventoryBucketAggregate::getQuantity);
+        if(available < quantity) {
+            inventory.update(target, available);
+            requestTransfer(inventory, productId, target, Math.max(lowWaterMark, quantity - available));
+        }
+        bucket.execute(aggregate -> aggregate.reserve(reserveProductCommand));
+        int remaining = available - quantity;
+        updateAfterCommit(inventory, target, remaining);
+        if(remaining < lowWaterMark) {
+            requestTransfer(inventory, productId, target, lowWaterMark - remaining);
+        }
+    }
+
+    public void cancelReservation(ProductInventoryShardRegistry.ShardedInventory inventory,
+                                  CancelProductReservationCommand cancelProductReservationCommand) throws Exception {
+        int target = inventory.selectForCancellation();
+        Aggregate<ProductInventoryBucketAggregate> bucket = load(cancelProductReservationCommand.getProductId(), target);
+        bucket.execute(aggregate -> aggregate.cancelReservation(cancelProductReservationCommand));
+        updateAfterCommit(inventory, target, bucket.invoke(ProductInventoryBucketAggregate::getQuantity));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transferExecutor.shutdown();
+    }
+
+    // Moves stock into a dry bucket from the fullest one; the donor releases it in one unit of work and
+    // ProductInventoryTransferHandler hands it to the target in another, so crossing transfers cannot deadlock
+    private void requestTransfer(ProductInventoryShardRegistry.ShardedInventory inventory, String productId, int target, int needed) {
+        if(!inventory.tryStartTransfer(target, System.currentTimeMillis(), transferIntervalMillis)) {
+            return;
+        }
+        List<Integer> donors = inventory.donorsFor(target);
+        if(donors.isEmpty()) {
+            return;
+        }
+        int donor = donors.get(0);
+        ReleaseProductInventoryCommand releaseProductInventoryCommand = ReleaseProductInventoryCommand.builder()
+                .bucketId(ProductInventoryBucketAggregate.bucketId(productId, donor))
+                .targetBucketId(ProductInventoryBucketAggregate.bucketId(productId, target))
+                .transferId(UUID.randomUUID().toString())
+                .quantity(needed).build();
+        Runnable send = () -> transferExecutor.execute(() -> commandGateway.send(releaseProductInventoryCommand).whenComplete((result, exception) -> {
+            if(exception != null) {
+                LOGGER.error("Moving inventory of product " + productId + " into bucket " + target + " failed: " + exception.getMessage());
+                return;
+            }
+            // Neither bucket's stock is known until it is loaded again
+            inventory.update(donor, ProductInventoryShardRegistry.UNKNOWN);
+            inventory.update(target, ProductInventoryShardRegistry.UNKNOWN);
+        }));
+        // Sent whether or not the reservation commits, a dry bucket needs stock either way
+        UnitOfWorkTasks.runOnCleanupOrNow(send);
+    }
+
+    private Aggregate<ProductInventoryBucketAggregate> load(String productId, int bucket) {
+        return bucketRepository.load(ProductInventoryBucketAggregate.bucketId(productId, bucket));
+    }
+
+    private void updateAfterCommit(ProductInventoryShardRegistry.ShardedInventory inventory, int bucket, int quantity) {
+        UnitOfWorkTasks.runAfterCommitOrNow(() -> inventory.update(bucket, quantity));
+    }
+}
@@ -0,0 +1,121 @@
+package com.transac.ProductsService.command;
+
+import com.transac.ProductsService.core.data.ProductLookupEntity;
+import com.transac.ProductsService.core.data.ProductLookupRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+@Component
+public class ProductInventoryShardRegistry {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductInventoryShardRegistry.class);
+    static final int UNKNOWN = -1;
+
+    private final ProductLookupRepository productLookupRepository;
+    private final Map<String, ShardedInventory> shardedInventories = new ConcurrentHashMap<>();
+
+    public ProductInventoryShardRegistry(ProductLookupRepository productLookupRepository) {
+        this.productLookupRepository = productLookupRepository;
+    }
+
+    // Loaded before the command handlers subscribe; products sharded later are registered from ProductInventoryShardedEvent
+    @PostConstruct
+    public void warmUp() {
+        for(ProductLookupEntity productLookupEntity : productLookupRepository.findByInventoryBucketsGreaterThan(1)) {
+            register(productLookupEntity.getProductId(), productLookupEntity.getInventoryBuckets());
+        }
+        LOGGER.info("Product inventory shard registry loaded with " + shardedInventories.size() + " sharded products");
+    }
+
+    public void register(String productId, int buckets) {
+        if(buckets > 1) {
+            shardedInventories.putIfAbsent(productId, new ShardedInventory(buckets));
+        }
+    }
+
+    public ShardedInventory get(String productId) {
+        return shardedInventories.get(productId);
+    }
+
+    public static class ShardedInventory {
+        private final int buckets;
+        private final AtomicIntegerArray available;
+        private final AtomicLongArray transferStartedAt;
+        private final AtomicInteger cursor = new AtomicInteger();
+
+        ShardedInventory(int buckets) {
+            this.buckets = buckets;
+            this.available = new AtomicIntegerArray(buckets);
+            this.transferStartedAt = new AtomicLongArray(buckets);
+            for(int bucket = 0; bucket < buckets; bucket++) {
+                available.set(bucket, UNKNOWN);
+            }
+        }
+
+        public int getBuckets() {
+            return buckets;
+        }
+
+        // Round robin over the buckets that can take the reservation, so concurrent reservations lock different buckets
+        public int selectForReservation(int quantity) {
+            int start = Math.floorMod(cursor.getAndIncrement(), buckets);
+            int best = start;
+            for(int offset = 0; offset < buckets; offset++) {
+                int bucket = (start + offset) % buckets;
+                int bucketAvailable = available.get(bucket);
+                if(bucketAvailable == UNKNOWN || bucketAvailable >= quantity) {
+                    return bucket;
+                }
+                if(bucketAvailable > available.get(best)) {
+                    best = bucket;
+                }
+            }
+            return best;
+        }
+
+        public int selectForCancellation() {
+            int start = Math.floorMod(cursor.getAndIncrement(), buckets);
+            int emptiest = start;
+            for(int offset = 0; offset < buckets; offset++) {
+                int bucket = (start + offset) % buckets;
+                if(available.get(bucket) != UNKNOWN && available.get(bucket) < available.get(emptiest)) {
+                    emptiest = bucket;
+                }
+            }
+            return emptiest;
+        }
+
+        public List<Integer> donorsFor(int target) {
+            List<Integer> donors = new ArrayList<>();
+            for(int bucket = 0; bucket < buckets; bucket++) {
+                if(bucket != target && available.get(bucket) != 0) {
+                    donors.add(bucket);
+                }
+            }
+            // Unknown buckets go first, they have not been drawn from since the registry was loaded
+            donors.sort(Comparator.comparingInt((Integer bucket) -> available.get(bucket) == UNKNOWN ? Integer.MAX_VALUE : available.get(bucket)).reversed());
+            return donors;
+        }
+
+        public void update(int bucket, int quantity) {
+            available.set(bucket, quantity);
+        }
+
+        // At most one transfer into a bucket per interval, reservations that find it dry meanwhile do not pile up transfers
+        public boolean tryStartTransfer(int bucket, long now, long intervalMillis) {
+            long startedAt = transferStartedAt.get(bucket);
+            return now - startedAt >= intervalMillis && transferStartedAt.compareAndSet(bucket, startedAt, now);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.transac.ProductsService.command;
+
+import com.transac.ProductsService.core.events.ProductInventoryShardedEvent;
+import org.axonframework.eventhandling.EventHandler;
+import org.springframework.stereotype.Component;
+
+// Runs on this instance's own processor, so every instance routes sharded products to their buckets.
+// Products created with buckets apply the sharded event as well
+@Component
+public class ProductInventoryShardRegistryEventsHandler {
+
+    private final ProductInventoryShardRegistry productInventoryShardRegistry;
+
+    public ProductInventoryShardRegistryEventsHandler(ProductInventoryShardRegistry productInventoryShardRegistry) {
+        this.productInventoryShardRegistry = productInventoryShardRegistry;
+    }
+
+    @EventHandler
+    public void on(ProductInventoryShardedEvent event) {
+        productInventoryShardRegistry.register(event.getProductId(), event.getInventoryBuckets());
+    }
+}
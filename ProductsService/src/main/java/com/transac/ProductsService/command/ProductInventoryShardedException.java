@@ -0,0 +1,21 @@
+package com.transac.ProductsService.command;
+
+public class ProductInventoryShardedException extends IllegalStateException {
+
+    private final String productId;
+    private final int inventoryBuckets;
+
+    public ProductInventoryShardedException(String productId, int inventoryBuckets) {
+        super(String.format("Inventory of product %s is sharded and reserved through its buckets", productId));
+        this.productId = productId;
+        this.inventoryBuckets = inventoryBuckets;
+    }
+
+    public String getProductId() {
+        return productId;
+    }
+
+    public int getInventoryBuckets() {
+        return inventoryBuckets;
+    }
+}
@@ -0,0 +1,33 @@
+package com.transac.ProductsService.command;
+
+import com.transac.ProductsService.core.events.ProductInventoryReleasedEvent;
+import org.axonframework.commandhandling.gateway.CommandGateway;
+import org.axonframework.config.ProcessingGroup;
+import org.axonframework.eventhandling.EventHandler;
+import org.springframework.stereotype.Component;
+
+@Component
+@ProcessingGroup("product-inventory-transfers")
+public class ProductInventoryTransferHandler {
+
+    private final CommandGateway commandGateway;
+
+    public ProductInventoryTransferHandler(CommandGateway commandGateway) {
+        this.commandGateway = commandGateway;
+    }
+
+    // Stock released by a donor bucket is handed to the target in a unit of work of its own, so no unit of work locks two buckets
+    @EventHandler
+    public void on(ProductInventoryReleasedEvent event) {
+        if(event.getTransferId() == null) {
+            // Released before transfers were split, the stock was received in the same unit of work
+            return;
+        }
+        ReceiveProductInventoryCommand receiveProductInventoryCommand = ReceiveProductInventoryCommand.builder()
+                .bucketId(event.getTargetBucketId())
+                .sourceBucketId(event.getBucketId())
+                .transferId(event.getTransferId())
+                .quantity(event.getQuantity()).build();
+        commandGateway.sendAndWait(receiveProductInventoryCommand);
+    }
+}
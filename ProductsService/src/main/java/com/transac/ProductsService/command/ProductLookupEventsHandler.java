@@ -2,9 +2,12 @@ package com.transac.ProductsService.command;
 
 import com.transac.ProductsService.core.data.ProductLookupEntity;
 import com.transac.ProductsService.core.data.ProductLookupRepository;
+import com.transac.ProductsService.core.data.ProductProjectionBatchWriter;
 import com.transac.ProductsService.core.events.ProductCreatedEvent;
+import com.transac.ProductsService.core.events.ProductInventoryShardedEvent;
 import org.axonframework.config.ProcessingGroup;
 import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventhandling.ReplayStatus;
 import org.axonframework.eventhandling.ResetHandler;
 import org.springframework.stereotype.Component;
 
@@ -13,19 +16,38 @@ import org.springframework.stereotype.Component;
 public class ProductLookupEventsHandler {
 
     private final ProductLookupRepository productLookupRepository;
+    private final ProductProjectionBatchWriter productProjectionBatchWriter;
 
-    public ProductLookupEventsHandler(ProductLookupRepository productLookupRepository) {
+    public ProductLookupEventsHandler(ProductLookupRepository productLookupRepository,
+                                      ProductProjectionBatchWriter productProjectionBatchWriter) {
         this.productLookupRepository = productLookupRepository;
+        this.productProjectionBatchWriter = productProjectionBatchWriter;
     }
 
     @EventHandler
-    public void on(ProductCreatedEvent event) {
-        ProductLookupEntity productLookupEntity = new ProductLookupEntity(event.getProductId(), event.getTitle());
-        productLookupRepository.save(productLookupEntity);
+    public void on(ProductCreatedEvent event, ReplayStatus replayStatus) {
+        if(replayStatus.isReplay()) {
+            productProjectionBatchWriter.addProductLookup(event.getProductId(), event.getTitle());
+        } else {
+            ProductLookupEntity productLookupEntity = new ProductLookupEntity(event.getProductId(), event.getTitle(), null);
+            productLookupRepository.save(productLookupEntity);
+        }
+    }
+
+    @EventHandler
+    public void on(ProductInventoryShardedEvent event, ReplayStatus replayStatus) {
+        if(replayStatus.isReplay()) {
+            productProjectionBatchWriter.setInventoryBuckets(event.getProductId(), event.getInventoryBuckets());
+        } else {
+            productLookupRepository.findById(event.getProductId()).ifPresent(productLookupEntity -> {
+                productLookupEntity.setInventoryBuckets(event.getInventoryBuckets());
+                productLookupRepository.save(productLookupEntity);
+            });
+        }
     }
 
     @ResetHandler
     public void reset() {
-        productLookupRepository.deleteAll();
+        productLookupRepository.deleteAllInBatch();
     }
 }
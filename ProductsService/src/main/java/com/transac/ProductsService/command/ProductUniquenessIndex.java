@@ -0,0 +1,136 @@
+package com.transac.ProductsService.command;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.transac.ProductsService.core.data.ProductLookupEntity;
+import com.transac.ProductsService.core.data.ProductLookupRepository;
+import com.transac.core.consistency.ProcessorTokenReader;
+import org.axonframework.eventhandling.EventTrackerStatus;
+import org.axonframework.eventhandling.EventTrackerStatusChangeListener;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventhandling.WrappedToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Component
+public class ProductUniquenessIndex {
+
+    public enum Match {
+        NONE, POSSIBLE, CONFIRMED
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductUniquenessIndex.class);
+    private static final String PRODUCT_ID_PREFIX = "id:";
+    private static final String TITLE_PREFIX = "title:";
+    private static final String PROCESSOR_NAME = "product-group";
+
+    private final ProductLookupRepository productLookupRepository;
+    private final ProcessorTokenReader processorTokenReader;
+    private final double falsePositiveProbability;
+    private final Set<String> productIds = ConcurrentHashMap.newKeySet();
+    private final Set<String> titles = ConcurrentHashMap.newKeySet();
+
+    private volatile BloomFilter<String> filter;
+    private volatile long filterCapacity;
+    // Set once this instance's processor has caught up with the events that came after the warm-up
+    private volatile boolean ready;
+
+    public ProductUniquenessIndex(ProductLookupRepository productLookupRepository, ProcessorTokenReader processorTokenReader,
+                                  @Value("${products.uniqueness-index.expected-insertions:100000}") long expectedInsertions,
+                                  @Value("${products.uniqueness-index.false-positive-probability:0.01}") double falsePositiveProbability) {
+        this.productLookupRepository = productLookupRepository;
+        this.processorTokenReader = processorTokenReader;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.filter = newFilter(expectedInsertions);
+        this.filterCapacity = expectedInsertions;
+    }
+
+    // Used as the initial token of this instance's processor: the lookup table is read after the tokens of the projection that writes it,
+    // so every product missing from the table comes after the returned token and reaches the index as an event
+    public TrackingToken warmUp() {
+        TrackingToken projectedUpTo = lowerBound(processorTokenReader.readTokens(PROCESSOR_NAME).values());
+        for(ProductLookupEntity productLookupEntity : productLookupRepository.findAll()) {
+            add(productLookupEntity.getProductId(), productLookupEntity.getTitle());
+        }
+        LOGGER.info("Product uniqueness index loaded with " + productIds.size() + " products, following events from " + projectedUpTo);
+        return projectedUpTo;
+    }
+
+    public EventTrackerStatusChangeListener catchUpListener() {
+        return new EventTrackerStatusChangeListener() {
+            @Override
+            public void onEventTrackerStatusChange(Map<Integer, EventTrackerStatus> updatedTrackerStatus) {
+                if(!ready && !updatedTrackerStatus.isEmpty() && updatedTrackerStatus.values().stream().allMatch(EventTrackerStatus::isCaughtUp)) {
+                    ready = true;
+                    LOGGER.info("Product uniqueness index is complete with " + productIds.size() + " products");
+                }
+            }
+
+            @Override
+            public boolean validatePositions() {
+                return false;
+            }
+        };
+    }
+
+    public Match lookup(String productId, String title) {
+        if(!ready) {
+            return Match.POSSIBLE;
+        }
+        String normalizedTitle = normalize(title);
+        BloomFilter<String> currentFilter = filter;
+        if(!currentFilter.mightContain(PRODUCT_ID_PREFIX + productId) && !currentFilter.mightContain(TITLE_PREFIX + normalizedTitle)) {
+            return Match.NONE;
+        }
+        if(productIds.contains(productId) || titles.contains(normalizedTitle)) {
+            return Match.CONFIRMED;
+        }
+        return Match.POSSIBLE;
+    }
+
+    public synchronized void add(String productId, String title) {
+        String normalizedTitle = normalize(title);
+        productIds.add(productId);
+        titles.add(normalizedTitle);
+        filter.put(PRODUCT_ID_PREFIX + productId);
+        filter.put(TITLE_PREFIX + normalizedTitle);
+        if(productIds.size() > filterCapacity) {
+            resize();
+        }
+    }
+
+    public static String normalize(String title) {
+        return title == null ? "" : title.trim().toLowerCase(Locale.ROOT);
+    }
+
+    // A segment without a token has not projected anything yet, so the index then follows the whole stream
+    private static TrackingToken lowerBound(Collection<TrackingToken> tokens) {
+        if(tokens.isEmpty() || tokens.stream().anyMatch(Objects::isNull)) {
+            return null;
+        }
+        return tokens.stream().map(WrappedToken::unwrapLowerBound).reduce(TrackingToken::lowerBound).orElse(null);
+    }
+
+    private void resize() {
+        long capacity = filterCapacity * 2;
+        BloomFilter<String> resized = newFilter(capacity);
+        productIds.forEach(productId -> resized.put(PRODUCT_ID_PREFIX + productId));
+        titles.forEach(title -> resized.put(TITLE_PREFIX + title));
+        filter = resized;
+        filterCapacity = capacity;
+    }
+
+    private BloomFilter<String> newFilter(long expectedInsertions) {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8), expectedInsertions, falsePositiveProbability);
+    }
+}
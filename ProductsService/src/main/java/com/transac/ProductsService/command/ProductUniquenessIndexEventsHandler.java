@@ -0,0 +1,21 @@
+package com.transac.ProductsService.command;
+
+import com.transac.ProductsService.core.events.ProductCreatedEvent;
+import org.axonframework.eventhandling.EventHandler;
+import org.springframework.stereotype.Component;
+
+// Runs on this instance's own processor, so every instance's index sees every product
+@Component
+public class ProductUniquenessIndexEventsHandler {
+
+    private final ProductUniquenessIndex productUniquenessIndex;
+
+    public ProductUniquenessIndexEventsHandler(ProductUniquenessIndex productUniquenessIndex) {
+        this.productUniquenessIndex = productUniquenessIndex;
+    }
+
+    @EventHandler
+    public void on(ProductCreatedEvent event) {
+        productUniquenessIndex.add(event.getProductId(), event.getTitle());
+    }
+}
@@ -0,0 +1,16 @@
+package com.transac.ProductsService.command;
+
+import lombok.Builder;
+import lombok.Data;
+import org.axonframework.modelling.command.TargetAggregateIdentifier;
+
+@Builder
+@Data
+public class ReceiveProductInventoryCommand {
+
+    @TargetAggregateIdentifier
+    private final String bucketId;
+    private final String sourceBucketId;
+    private final String transferId;
+    private final int quantity;
+}
@@ -0,0 +1,14 @@
+package com.transac.ProductsService.command;
+
+import lombok.Builder;
+import lombok.Data;
+import org.axonframework.modelling.command.TargetAggregateIdentifier;
+
+@Builder
+@Data
+public class ShardProductInventoryCommand {
+
+    @TargetAggregateIdentifier
+    private final String productId;
+    private final int inventoryBuckets;
+}
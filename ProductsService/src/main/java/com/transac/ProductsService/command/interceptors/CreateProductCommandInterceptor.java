@@ -1,7 +1,7 @@
 package com.transac.ProductsService.command.interceptors;
 
 import com.transac.ProductsService.command.CreateProductCommand;
-import com.transac.ProductsService.core.data.ProductLookupEntity;
+import com.transac.ProductsService.command.ProductUniquenessIndex;
 import com.transac.ProductsService.core.data.ProductLookupRepository;
 import org.axonframework.commandhandling.CommandMessage;
 import org.axonframework.messaging.MessageDispatchInterceptor;
@@ -17,22 +17,20 @@ public class CreateProductCommandInterceptor implements MessageDispatchIntercept
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CreateProductCommandInterceptor.class);
     private final ProductLookupRepository productLookupRepository;
+    private final ProductUniquenessIndex productUniquenessIndex;
 
-    public CreateProductCommandInterceptor(ProductLookupRepository productLookupRepository) {
+    public CreateProductCommandInterceptor(ProductLookupRepository productLookupRepository, ProductUniquenessIndex productUniquenessIndex) {
         this.productLookupRepository = productLookupRepository;
+        this.productUniquenessIndex = productUniquenessIndex;
     }
 
     @Override
     public BiFunction<Integer, CommandMessage<?>, CommandMessage<?>> handle(List<? extends CommandMessage<?>> list) {
         return (index, command) -> {
-            LOGGER.info("Intercepted command: " + command.getPayloadType());
             if(CreateProductCommand.class.equals(command.getPayloadType())) {
+                LOGGER.debug("Intercepted command: " + command.getPayloadType());
                 CreateProductCommand createProductCommand = (CreateProductCommand) command.getPayload();
-                ProductLookupEntity productLookupEntity = productLookupRepository.findByProductIdOrTitle(
-                        createProductCommand.getProductId(),
-                        createProductCommand.getTitle()
-                );
-                if(productLookupEntity != null) {
+                if(productExists(createProductCommand)) {
                     throw new IllegalStateException(String.format("product with productId %s or title %s already exists",
                             createProductCommand.getProductId(), createProductCommand.getTitle()));
                 }
@@ -40,4 +38,18 @@ public class CreateProductCommandInterceptor implements MessageDispatchIntercept
             return command;
         };
     }
+
+    private boolean productExists(CreateProductCommand createProductCommand) {
+        switch(productUniquenessIndex.lookup(createProductCommand.getProductId(), createProductCommand.getTitle())) {
+            case NONE:
+                return false;
+            case CONFIRMED:
+                return true;
+            default:
+                return productLookupRepository.existsByProductIdOrNormalizedTitle(
+                        createProductCommand.getProductId(),
+                        ProductUniquenessIndex.normalize(createProductCommand.getTitle())
+                );
+        }
+    }
 }
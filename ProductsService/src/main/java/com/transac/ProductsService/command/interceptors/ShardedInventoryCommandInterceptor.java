@@ -0,0 +1,64 @@
+package com.transac.ProductsService.command.interceptors;
+
+import com.transac.ProductsService.command.ProductInventoryBuckets;
+import com.transac.ProductsService.command.ProductInventoryShardRegistry;
+import com.transac.ProductsService.command.ProductInventoryShardedException;
+import com.transac.core.commands.CancelProductReservationCommand;
+import com.transac.core.commands.ReserveProductCommand;
+import org.axonframework.commandhandling.CommandMessage;
+import org.axonframework.messaging.InterceptorChain;
+import org.axonframework.messaging.MessageHandlerInterceptor;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.springframework.stereotype.Component;
+
+@Component
+public class ShardedInventoryCommandInterceptor implements MessageHandlerInterceptor<CommandMessage<?>> {
+
+    private final ProductInventoryShardRegistry productInventoryShardRegistry;
+    private final ProductInventoryBuckets productInventoryBuckets;
+
+    public ShardedInventoryCommandInterceptor(ProductInventoryShardRegistry productInventoryShardRegistry,
+                                              ProductInventoryBuckets productInventoryBuckets) {
+        this.productInventoryShardRegistry = productInventoryShardRegistry;
+        this.productInventoryBuckets = productInventoryBuckets;
+    }
+
+    @Override
+    public Object handle(UnitOfWork<? extends CommandMessage<?>> unitOfWork, InterceptorChain interceptorChain) throws Exception {
+        Object command = unitOfWork.getMessage().getPayload();
+        if(command instanceof ReserveProductCommand) {
+            ReserveProductCommand reserveProductCommand = (ReserveProductCommand) command;
+            ProductInventoryShardRegistry.ShardedInventory inventory = productInventoryShardRegistry.get(reserveProductCommand.getProductId());
+            if(inventory != null) {
+                productInventoryBuckets.reserve(inventory, reserveProductCommand);
+                return null;
+            }
+            try {
+                return interceptorChain.proceed();
+            } catch (ProductInventoryShardedException e) {
+                productInventoryBuckets.reserve(register(e), reserveProductCommand);
+                return null;
+            }
+        } else if(command instanceof CancelProductReservationCommand) {
+            CancelProductReservationCommand cancelProductReservationCommand = (CancelProductReservationCommand) command;
+            ProductInventoryShardRegistry.ShardedInventory inventory = productInventoryShardRegistry.get(cancelProductReservationCommand.getProductId());
+            if(inventory != null) {
+                productInventoryBuckets.cancelReservation(inventory, cancelProductReservationCommand);
+                return null;
+            }
+            try {
+                return interceptorChain.proceed();
+            } catch (ProductInventoryShardedException e) {
+                productInventoryBuckets.cancelReservation(register(e), cancelProductReservationCommand);
+                return null;
+            }
+        }
+        return interceptorChain.proceed();
+    }
+
+    // The sharding event has not reached this instance's registry yet, the product aggregate itself knows its buckets
+    private ProductInventoryShardRegistry.ShardedInventory register(ProductInventoryShardedException e) {
+        productInventoryShardRegistry.register(e.getProductId(), e.getInventoryBuckets());
+        return productInventoryShardRegistry.get(e.getProductId());
+    }
+}
@@ -19,4 +19,8 @@ public class CreateProductRestModel {
     @Min(value = 1, message = "Quantity cannot be lower than 1")
     @Max(value = 5, message = "Quantity cannot be larger than 5")
     private int quantity;
+
+    @Min(value = 0, message = "Inventory buckets cannot be lower than 0")
+    @Max(value = 16, message = "Inventory buckets cannot be larger than 16")
+    private int inventoryBuckets;
 }
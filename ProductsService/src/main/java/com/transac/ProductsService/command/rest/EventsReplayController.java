@@ -1,12 +1,16 @@
 package com.transac.ProductsService.command.rest;
 
+import com.transac.ProductsService.core.replay.ReplayProgress;
+import com.transac.ProductsService.core.replay.SegmentedReplayCoordinator;
 import org.axonframework.config.EventProcessingConfiguration;
 import org.axonframework.eventhandling.TrackingEventProcessor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.Optional;
@@ -18,17 +22,30 @@ public class EventsReplayController {
     @Autowired
     private EventProcessingConfiguration eventProcessingConfiguration;
 
+    @Autowired
+    private SegmentedReplayCoordinator segmentedReplayCoordinator;
+
     @PostMapping("/eventProcessor/{processorName}/reset")
-    public ResponseEntity<String> replayEvents(@PathVariable String processorName) {
+    public ResponseEntity<String> replayEvents(@PathVariable String processorName,
+                                               @RequestParam(defaultValue = "1") int segments) {
         Optional<TrackingEventProcessor> trackingEventProcessor = eventProcessingConfiguration.eventProcessor(processorName, TrackingEventProcessor.class);
         if(trackingEventProcessor.isPresent()) {
             TrackingEventProcessor eventProcessor = trackingEventProcessor.get();
             eventProcessor.shutDown();
             eventProcessor.resetTokens();
             eventProcessor.start();
-            return ResponseEntity.ok().body(String.format("The event processor with name [%s] has been reset", processorName));
+            int replaySegments = segmentedReplayCoordinator.startReplay(processorName, eventProcessor, segments);
+            return ResponseEntity.ok().body(String.format("The event processor with name [%s] has been reset and replays with %d segments",
+                    processorName, replaySegments));
         } else {
             return ResponseEntity.badRequest().body(String.format("The event processor with name [%s] is not a tracking event processor", processorName));
         }
     }
+
+    @GetMapping("/eventProcessor/{processorName}/progress")
+    public ResponseEntity<ReplayProgress> replayProgress(@PathVariable String processorName) {
+        return segmentedReplayCoordinator.getProgress(processorName)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
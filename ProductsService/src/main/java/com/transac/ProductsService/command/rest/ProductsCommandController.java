@@ -1,13 +1,18 @@
 package com.transac.ProductsService.command.rest;
 
 import com.transac.ProductsService.command.CreateProductCommand;
+import com.transac.ProductsService.command.ShardProductInventoryCommand;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
 import org.axonframework.commandhandling.gateway.CommandGateway;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.env.Environment;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/products")
@@ -15,29 +20,55 @@ public class ProductsCommandController {
 
     private final Environment env;
     private final CommandGateway commandGateway;
+    private final ProjectionPositionTracker productProjectionPositionTracker;
+    private final IdempotencyRegistry idempotencyRegistry;
 
     @Autowired
-    public ProductsCommandController(Environment env, CommandGateway commandGateway) {
+    public ProductsCommandController(Environment env, CommandGateway commandGateway, ProjectionPositionTracker productProjectionPositionTracker,
+                                     IdempotencyRegistry idempotencyRegistry) {
         this.env = env;
         this.commandGateway = commandGateway;
+        this.productProjectionPositionTracker = productProjectionPositionTracker;
+        this.idempotencyRegistry = idempotencyRegistry;
     }
 
     @PostMapping
-    public String createProduct(@Valid @RequestBody CreateProductRestModel createProductRestModel) {
+    public CompletableFuture<ResponseEntity<String>> createProduct(@RequestHeader(name = IdempotencyRegistry.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+                                                                   @Valid @RequestBody CreateProductRestModel createProductRestModel) {
         CreateProductCommand createProductCommand = CreateProductCommand.builder()
                 .productId(UUID.randomUUID().toString())
                 .title(createProductRestModel.getTitle())
                 .price(createProductRestModel.getPrice())
-                .quantity(createProductRestModel.getQuantity()).build();
+                .quantity(createProductRestModel.getQuantity())
+                .inventoryBuckets(createProductRestModel.getInventoryBuckets()).build();
 
-        String returnValue;
-        returnValue = commandGateway.sendAndWait(createProductCommand);
+        // A retry with the same key gets the product created by the first request instead of a second product
+        String fingerprint = IdempotencyRegistry.fingerprint(createProductRestModel.getTitle(), createProductRestModel.getPrice(),
+                createProductRestModel.getQuantity(), createProductRestModel.getInventoryBuckets());
+        CompletableFuture<String> returnValue = idempotencyRegistry.execute("create-product", idempotencyKey, fingerprint, String.class,
+                () -> commandGateway.send(createProductCommand));
 //        try {
 //            returnValue = commandGateway.sendAndWait(createProductCommand);
 //        } catch (Exception e) {
 //            returnValue = e.getLocalizedMessage();
 //        }
-        return returnValue;
+        // Reading the head position is a remote call, so it runs on the tracker's bounded pool rather than the common pool
+        return returnValue.thenApplyAsync(productId -> withConsistencyToken(ResponseEntity.ok()).body(productId),
+                productProjectionPositionTracker.getExecutor());
+    }
+
+    @PostMapping("/{productId}/inventory-buckets")
+    public ResponseEntity<Void> shardInventory(@PathVariable String productId, @RequestParam int buckets) {
+        ShardProductInventoryCommand shardProductInventoryCommand = ShardProductInventoryCommand.builder()
+                .productId(productId)
+                .inventoryBuckets(buckets).build();
+        commandGateway.sendAndWait(shardProductInventoryCommand);
+        return withConsistencyToken(ResponseEntity.ok()).build();
+    }
+
+    // Sent back on the next query, which then waits until the projection has handled this command's events
+    private ResponseEntity.BodyBuilder withConsistencyToken(ResponseEntity.BodyBuilder response) {
+        return response.header(ProjectionPositionTracker.CONSISTENCY_TOKEN_HEADER, String.valueOf(productProjectionPositionTracker.headPosition()));
     }
 
 //    @GetMapping
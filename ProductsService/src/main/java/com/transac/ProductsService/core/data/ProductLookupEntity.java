@@ -21,4 +21,5 @@ public class ProductLookupEntity implements Serializable {
     @Id
     private String productId;
     private String title;
+    private Integer inventoryBuckets;
 }
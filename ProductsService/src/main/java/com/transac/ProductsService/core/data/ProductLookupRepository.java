@@ -1,7 +1,15 @@
 package com.transac.ProductsService.core.data;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
 
 public interface ProductLookupRepository extends JpaRepository<ProductLookupEntity, String> {
-    ProductLookupEntity findByProductIdOrTitle(String productId, String title);
+    // Titles are compared the way ProductUniquenessIndex normalizes them, the caller passes the normalized title
+    @Query("SELECT CASE WHEN COUNT(p) > 0 THEN true ELSE false END FROM ProductLookupEntity p " +
+            "WHERE p.productId = :productId OR LOWER(TRIM(p.title)) = :normalizedTitle")
+    boolean existsByProductIdOrNormalizedTitle(@Param("productId") String productId, @Param("normalizedTitle") String normalizedTitle);
+    List<ProductLookupEntity> findByInventoryBucketsGreaterThan(int inventoryBuckets);
 }
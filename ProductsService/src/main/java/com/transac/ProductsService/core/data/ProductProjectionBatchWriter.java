@@ -0,0 +1,272 @@
+package com.transac.ProductsService.core.data;
+
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.spi.MetamodelImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+@Component
+public class ProductProjectionBatchWriter {
+
+    public enum FlushPolicy {
+        COMMIT, SIZE
+    }
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProductProjectionBatchWriter.class);
+    private static final String PENDING_CHANGES_RESOURCE = ProductProjectionBatchWriter.class.getName() + ".pendingChanges";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final boolean enabled;
+    private final int batchSize;
+    private final FlushPolicy flushPolicy;
+
+    private String insertProductSql;
+    private String insertProductLookupSql;
+    private String updateInventoryBucketsSql;
+    private String updateQuantitySql;
+
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong eventsFlushed = new AtomicLong();
+    private final AtomicLong rowsWritten = new AtomicLong();
+    private final AtomicLong eventsCoalesced = new AtomicLong();
+    private final AtomicLong productInserts = new AtomicLong();
+    private final AtomicLong productLookupInserts = new AtomicLong();
+    private final AtomicLong inventoryBucketUpdates = new AtomicLong();
+    private final AtomicLong stockUpdates = new AtomicLong();
+    private volatile int lastFlushEvents;
+    private volatile int lastFlushCoalesced;
+
+    public ProductProjectionBatchWriter(JdbcTemplate jdbcTemplate, EntityManager entityManager,
+                                        @Value("${products.projection.batch.enabled:false}") boolean enabled,
+                                        @Value("${products.projection.batch.size:100}") int batchSize,
+                                        @Value("${products.projection.batch.flush-policy:COMMIT}") FlushPolicy flushPolicy) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.flushPolicy = flushPolicy;
+    }
+
+    // Table and column names are read from the JPA mapping, so the statements follow the entities and the naming strategy
+    @PostConstruct
+    public void prepareStatements() {
+        MetamodelImplementor metamodel = entityManager.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class).getMetamodel();
+        AbstractEntityPersister products = (AbstractEntityPersister) metamodel.entityPersister(ProductEntity.class);
+        AbstractEntityPersister productLookups = (AbstractEntityPersister) metamodel.entityPersister(ProductLookupEntity.class);
+        String productId = products.getIdentifierColumnNames()[0];
+        String quantity = column(products, "quantity");
+        String lookupProductId = productLookups.getIdentifierColumnNames()[0];
+        String inventoryBuckets = column(productLookups, "inventoryBuckets");
+
+        insertProductSql = "INSERT INTO " + products.getTableName() + " (" + productId + ", " + column(products, "title") + ", " +
+                column(products, "price") + ", " + quantity + ") VALUES (?, ?, ?, ?)";
+        insertProductLookupSql = "INSERT INTO " + productLookups.getTableName() + " (" + lookupProductId + ", " +
+                column(productLookups, "title") + ", " + inventoryBuckets + ") VALUES (?, ?, ?)";
+        updateInventoryBucketsSql = "UPDATE " + productLookups.getTableName() + " SET " + inventoryBuckets + " = ? WHERE " + lookupProductId + " = ?";
+        updateQuantitySql = "UPDATE " + products.getTableName() + " SET " + quantity + " = " + quantity + " + ? WHERE " + productId + " = ?";
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addProduct(ProductEntity productEntity) {
+        apply(changes -> changes.addProduct(productEntity));
+    }
+
+    public void addProductLookup(String productId, String title) {
+        apply(changes -> changes.addProductLookup(productId, title));
+    }
+
+    public void addStockDelta(String productId, int delta) {
+        apply(changes -> changes.addStockDelta(productId, delta));
+    }
+
+    public void setInventoryBuckets(String productId, int inventoryBuckets) {
+        apply(changes -> changes.setInventoryBuckets(productId, inventoryBuckets));
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("enabled", enabled);
+        statistics.put("batchSize", batchSize);
+        statistics.put("flushPolicy", flushPolicy);
+        statistics.put("flushes", flushes.get());
+        statistics.put("eventsFlushed", eventsFlushed.get());
+        statistics.put("rowsWritten", rowsWritten.get());
+        statistics.put("eventsCoalesced", eventsCoalesced.get());
+        statistics.put("productInserts", productInserts.get());
+        statistics.put("productLookupInserts", productLookupInserts.get());
+        statistics.put("inventoryBucketUpdates", inventoryBucketUpdates.get());
+        statistics.put("stockUpdates", stockUpdates.get());
+        statistics.put("lastFlushEvents", lastFlushEvents);
+        statistics.put("lastFlushCoalesced", lastFlushCoalesced);
+        return statistics;
+    }
+
+    private void apply(Consumer<PendingChanges> change) {
+        if(!CurrentUnitOfWork.isStarted()) {
+            PendingChanges changes = new PendingChanges();
+            change.accept(changes);
+            flush(changes);
+            return;
+        }
+        PendingChanges changes = pendingChanges();
+        change.accept(changes);
+        if(flushPolicy == FlushPolicy.SIZE && changes.size() >= batchSize) {
+            flush(changes);
+        }
+    }
+
+    private PendingChanges pendingChanges() {
+        UnitOfWork<?> unitOfWork = CurrentUnitOfWork.get().root();
+        return unitOfWork.getOrComputeResource(PENDING_CHANGES_RESOURCE, key -> {
+            PendingChanges changes = new PendingChanges();
+            unitOfWork.onPrepareCommit(u -> flush(changes));
+            return changes;
+        });
+    }
+
+    private void flush(PendingChanges changes) {
+        if(changes.isEmpty()) {
+            return;
+        }
+        // Rows saved through JPA earlier in this batch must be visible to the JDBC statements below
+        entityManager.flush();
+
+        List<Object[]> productInserts = new ArrayList<>();
+        changes.newProducts.values().forEach(product -> productInserts.add(new Object[] {
+                product.getProductId(), product.getTitle(), product.getPrice(), product.getQuantity() }));
+        if(!productInserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertProductSql, productInserts);
+        }
+
+        List<Object[]> productLookupInserts = new ArrayList<>();
+        changes.newProductLookups.values().forEach(productLookup -> productLookupInserts.add(new Object[] {
+                productLookup.getProductId(), productLookup.getTitle(), productLookup.getInventoryBuckets() }));
+        if(!productLookupInserts.isEmpty()) {
+            jdbcTemplate.batchUpdate(insertProductLookupSql, productLookupInserts);
+        }
+
+        List<Object[]> inventoryBucketUpdates = new ArrayList<>();
+        changes.inventoryBuckets.forEach((productId, buckets) -> inventoryBucketUpdates.add(new Object[] { buckets, productId }));
+        if(!inventoryBucketUpdates.isEmpty()) {
+            checkUpdated(jdbcTemplate.batchUpdate(updateInventoryBucketsSql, inventoryBucketUpdates), inventoryBucketUpdates, "inventory buckets");
+        }
+
+        List<Object[]> stockUpdates = new ArrayList<>();
+        changes.stockDeltas.forEach((productId, delta) -> {
+            if(delta != 0) {
+                stockUpdates.add(new Object[] { delta, productId });
+            }
+        });
+        if(!stockUpdates.isEmpty()) {
+            checkUpdated(jdbcTemplate.batchUpdate(updateQuantitySql, stockUpdates), stockUpdates, "stock");
+        }
+
+        int rows = productInserts.size() + productLookupInserts.size() + inventoryBucketUpdates.size() + stockUpdates.size();
+        // Events that changed a row already written by this flush, or whose stock deltas cancelled out
+        int coalesced = changes.events - rows;
+        flushes.incrementAndGet();
+        eventsFlushed.addAndGet(changes.events);
+        rowsWritten.addAndGet(rows);
+        eventsCoalesced.addAndGet(coalesced);
+        this.productInserts.addAndGet(productInserts.size());
+        this.productLookupInserts.addAndGet(productLookupInserts.size());
+        this.inventoryBucketUpdates.addAndGet(inventoryBucketUpdates.size());
+        this.stockUpdates.addAndGet(stockUpdates.size());
+        lastFlushEvents = changes.events;
+        lastFlushCoalesced = coalesced;
+        if(LOGGER.isDebugEnabled()) {
+            LOGGER.debug("Flushed " + productInserts.size() + " product inserts, " + productLookupInserts.size() + " product lookup inserts, " +
+                    inventoryBucketUpdates.size() + " inventory bucket updates and " + stockUpdates.size() + " stock updates for " +
+                    changes.events + " events (" + coalesced + " coalesced)");
+        }
+        changes.clear();
+    }
+
+    // A missing row would silently drop the change, failing the batch rolls the unit of work back so the events are retried
+    private static void checkUpdated(int[] updateCounts, List<Object[]> updates, String change) {
+        for(int i = 0; i < updateCounts.length; i++) {
+            if(updateCounts[i] == 0) {
+                Object productId = updates.get(i)[1];
+                throw new IllegalStateException("Writing the " + change + " change of product " + productId + " updated no row");
+            }
+        }
+    }
+
+    private static String column(AbstractEntityPersister persister, String property) {
+        return persister.getPropertyColumnNames(property)[0];
+    }
+
+    private static class PendingChanges {
+        private final Map<String, ProductEntity> newProducts = new LinkedHashMap<>();
+        private final Map<String, ProductLookupEntity> newProductLookups = new LinkedHashMap<>();
+        private final Map<String, Integer> inventoryBuckets = new LinkedHashMap<>();
+        private final Map<String, Integer> stockDeltas = new LinkedHashMap<>();
+        private int events;
+
+        void addProduct(ProductEntity productEntity) {
+            newProducts.put(productEntity.getProductId(), productEntity);
+            events++;
+        }
+
+        void addProductLookup(String productId, String title) {
+            newProductLookups.put(productId, new ProductLookupEntity(productId, title, null));
+            events++;
+        }
+
+        void setInventoryBuckets(String productId, int buckets) {
+            ProductLookupEntity newProductLookup = newProductLookups.get(productId);
+            if(newProductLookup != null) {
+                newProductLookup.setInventoryBuckets(buckets);
+            } else {
+                inventoryBuckets.put(productId, buckets);
+            }
+            events++;
+        }
+
+        void addStockDelta(String productId, int delta) {
+            ProductEntity newProduct = newProducts.get(productId);
+            if(newProduct != null) {
+                // The row is not written yet, so the delta goes straight into the insert
+                newProduct.setQuantity(newProduct.getQuantity() + delta);
+            } else {
+                stockDeltas.merge(productId, delta, Integer::sum);
+            }
+            events++;
+        }
+
+        int size() {
+            return newProducts.size() + newProductLookups.size() + inventoryBuckets.size() + stockDeltas.size();
+        }
+
+        boolean isEmpty() {
+            return events == 0;
+        }
+
+        void clear() {
+            newProducts.clear();
+            newProductLookups.clear();
+            inventoryBuckets.clear();
+            stockDeltas.clear();
+            events = 0;
+        }
+    }
+}
@@ -1,8 +1,24 @@
 package com.transac.ProductsService.core.data;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
 
 public interface ProductsRepository extends JpaRepository<ProductEntity, String> {
     ProductEntity findByProductId(String productId);
     ProductEntity findByProductIdOrTitle(String productId, String title);
+
+    @Query("SELECT p FROM ProductEntity p WHERE p.productId > :afterProductId" +
+            " AND p.quantity >= :minQuantity" +
+            " AND (:minPrice IS NULL OR p.price >= :minPrice) AND (:maxPrice IS NULL OR p.price <= :maxPrice)" +
+            " ORDER BY p.productId")
+    List<ProductEntity> findPage(@Param("afterProductId") String afterProductId,
+                                 @Param("minQuantity") int minQuantity,
+                                 @Param("minPrice") BigDecimal minPrice,
+                                 @Param("maxPrice") BigDecimal maxPrice,
+                                 Pageable pageable);
 }
@@ -1,5 +1,6 @@
 package com.transac.ProductsService.core.errorhandling;
 
+import com.transac.core.idempotency.IdempotencyKeyReusedException;
 import org.axonframework.commandhandling.CommandExecutionException;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
@@ -19,6 +20,12 @@ public class ProductsServiceErrorHandler {
         return new ResponseEntity<>(errorMessage, new HttpHeaders(), HttpStatus.INTERNAL_SERVER_ERROR);
     }
 
+    @ExceptionHandler(value = { IdempotencyKeyReusedException.class })
+    public ResponseEntity<Object> handleIdempotencyKeyReusedException(IdempotencyKeyReusedException ex, WebRequest request) {
+        ErrorMessage errorMessage = new ErrorMessage(new Date(), ex.getMessage());
+        return new ResponseEntity<>(errorMessage, new HttpHeaders(), HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+
     @ExceptionHandler(value = { Exception.class })
     public ResponseEntity<Object> handleOtherExceptions(Exception ex, WebRequest request) {
         ErrorMessage errorMessage = new ErrorMessage(new Date(), ex.getMessage());
@@ -0,0 +1,41 @@
+package com.transac.ProductsService.core.eventprocessing;
+
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventhandling.async.SequencingPolicy;
+import org.axonframework.eventhandling.async.SequentialPerAggregatePolicy;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Events of a product and of its inventory buckets carry the product id, so they are handled on one segment in publication order
+public class ProductSequencingPolicy implements SequencingPolicy<EventMessage<?>> {
+
+    private final Map<Class<?>, Optional<Method>> productIdGetters = new ConcurrentHashMap<>();
+
+    @Override
+    public Object getSequenceIdentifierFor(EventMessage<?> event) {
+        Optional<Method> productIdGetter = productIdGetters.computeIfAbsent(event.getPayloadType(), ProductSequencingPolicy::findProductIdGetter);
+        if(productIdGetter.isPresent()) {
+            try {
+                Object productId = productIdGetter.get().invoke(event.getPayload());
+                if(productId != null) {
+                    return productId;
+                }
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Reading the product id of " + event.getPayloadType().getName() + " failed", e);
+            }
+        }
+        return SequentialPerAggregatePolicy.instance().getSequenceIdentifierFor(event);
+    }
+
+    private static Optional<Method> findProductIdGetter(Class<?> payloadType) {
+        try {
+            Method getter = payloadType.getMethod("getProductId");
+            return getter.getReturnType() == String.class ? Optional.of(getter) : Optional.empty();
+        } catch (NoSuchMethodException e) {
+            return Optional.empty();
+        }
+    }
+}
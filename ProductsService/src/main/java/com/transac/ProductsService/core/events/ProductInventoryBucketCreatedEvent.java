@@ -0,0 +1,12 @@
+package com.transac.ProductsService.core.events;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ProductInventoryBucketCreatedEvent {
+    private final String bucketId;
+    private final String productId;
+    private final int quantity;
+}
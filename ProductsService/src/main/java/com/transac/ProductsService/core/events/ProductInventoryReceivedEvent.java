@@ -0,0 +1,14 @@
+package com.transac.ProductsService.core.events;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ProductInventoryReceivedEvent {
+    private final String bucketId;
+    private final String productId;
+    private final String sourceBucketId;
+    private final int quantity;
+    private final String transferId;
+}
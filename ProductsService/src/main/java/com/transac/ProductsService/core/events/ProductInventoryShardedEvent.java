@@ -0,0 +1,12 @@
+package com.transac.ProductsService.core.events;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class ProductInventoryShardedEvent {
+    private final String productId;
+    private final int inventoryBuckets;
+    private final int quantity;
+}
@@ -0,0 +1,98 @@
+package com.transac.ProductsService.core.eventstore;
+
+import org.axonframework.serialization.Converter;
+import org.axonframework.serialization.SerializationException;
+import org.axonframework.serialization.SerializedObject;
+import org.axonframework.serialization.SerializedType;
+import org.axonframework.serialization.Serializer;
+import org.axonframework.serialization.SimpleSerializedObject;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+public class CompressingSerializer implements Serializer {
+
+    private static final byte GZIP_MAGIC_FIRST = (byte) 0x1f;
+    private static final byte GZIP_MAGIC_SECOND = (byte) 0x8b;
+
+    private final Serializer delegate;
+    private final int minimumSize;
+    private final SnapshotStoreMetrics metrics;
+
+    public CompressingSerializer(Serializer delegate, int minimumSize, SnapshotStoreMetrics metrics) {
+        this.delegate = delegate;
+        this.minimumSize = minimumSize;
+        this.metrics = metrics;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> SerializedObject<T> serialize(Object object, Class<T> expectedRepresentation) {
+        if(!byte[].class.equals(expectedRepresentation)) {
+            return delegate.serialize(object, expectedRepresentation);
+        }
+        SerializedObject<byte[]> serialized = delegate.serialize(object, byte[].class);
+        byte[] data = serialized.getData();
+        if(data.length < minimumSize) {
+            return (SerializedObject<T>) serialized;
+        }
+        byte[] compressed = compress(data);
+        metrics.recordCompression(data.length, compressed.length);
+        return (SerializedObject<T>) new SimpleSerializedObject<>(compressed, byte[].class, serialized.getType());
+    }
+
+    @Override
+    public <T> boolean canSerializeTo(Class<T> expectedRepresentation) {
+        return delegate.canSerializeTo(expectedRepresentation);
+    }
+
+    @Override
+    public <S, T> T deserialize(SerializedObject<S> serializedObject) {
+        Object data = serializedObject.getData();
+        // Snapshots written before compression was enabled are read as they are
+        if(data instanceof byte[] && isCompressed((byte[]) data)) {
+            return delegate.deserialize(new SimpleSerializedObject<>(decompress((byte[]) data), byte[].class, serializedObject.getType()));
+        }
+        return delegate.deserialize(serializedObject);
+    }
+
+    @Override
+    public Class classForType(SerializedType type) {
+        return delegate.classForType(type);
+    }
+
+    @Override
+    public SerializedType typeForClass(Class type) {
+        return delegate.typeForClass(type);
+    }
+
+    @Override
+    public Converter getConverter() {
+        return delegate.getConverter();
+    }
+
+    private static boolean isCompressed(byte[] data) {
+        return data.length > 2 && data[0] == GZIP_MAGIC_FIRST && data[1] == GZIP_MAGIC_SECOND;
+    }
+
+    private static byte[] compress(byte[] data) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(data.length / 2);
+        try(GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new SerializationException("Unable to compress snapshot", e);
+        }
+        return output.toByteArray();
+    }
+
+    private static byte[] decompress(byte[] data) {
+        try(GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data))) {
+            return gzip.readAllBytes();
+        } catch (IOException e) {
+            throw new SerializationException("Unable to decompress snapshot", e);
+        }
+    }
+}
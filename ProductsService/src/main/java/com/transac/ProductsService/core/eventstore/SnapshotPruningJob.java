@@ -0,0 +1,48 @@
+package com.transac.ProductsService.core.eventstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class SnapshotPruningJob {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotPruningJob.class);
+
+    private final SnapshotRetainingJpaEventStorageEngine eventStorageEngine;
+    private final long intervalMillis;
+    private final int maxAggregatesPerRun;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "snapshot-pruning");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public SnapshotPruningJob(SnapshotRetainingJpaEventStorageEngine eventStorageEngine, long intervalMillis, int maxAggregatesPerRun) {
+        this.eventStorageEngine = eventStorageEngine;
+        this.intervalMillis = intervalMillis;
+        this.maxAggregatesPerRun = maxAggregatesPerRun;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::prune, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void prune() {
+        try {
+            eventStorageEngine.pruneSnapshots(maxAggregatesPerRun);
+        } catch (Exception e) {
+            LOGGER.error("Snapshot pruning failed: " + e.getMessage());
+        }
+    }
+}
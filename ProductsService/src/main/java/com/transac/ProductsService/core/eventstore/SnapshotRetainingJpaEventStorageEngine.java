@@ -0,0 +1,97 @@
+package com.transac.ProductsService.core.eventstore;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventsourcing.eventstore.jpa.JpaEventStorageEngine;
+import org.axonframework.eventsourcing.eventstore.jpa.SnapshotEventEntry;
+import org.axonframework.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+public class SnapshotRetainingJpaEventStorageEngine extends JpaEventStorageEngine {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotRetainingJpaEventStorageEngine.class);
+
+    private final TransactionManager transactionManager;
+    private final int snapshotsToKeep;
+    private final SnapshotStoreMetrics metrics;
+    private final Cache<String, HashCode> lastSnapshotHashes;
+
+    public SnapshotRetainingJpaEventStorageEngine(JpaEventStorageEngine.Builder builder,
+                                                  TransactionManager transactionManager,
+                                                  int snapshotsToKeep,
+                                                  long hashCacheSize,
+                                                  SnapshotStoreMetrics metrics) {
+        super(builder.transactionManager(transactionManager));
+        this.transactionManager = transactionManager;
+        this.snapshotsToKeep = Math.max(1, snapshotsToKeep);
+        this.metrics = metrics;
+        this.lastSnapshotHashes = CacheBuilder.newBuilder()
+                .maximumSize(hashCacheSize)
+                .build();
+    }
+
+    @Override
+    protected void storeSnapshot(DomainEventMessage<?> snapshot, Serializer serializer) {
+        String aggregateIdentifier = snapshot.getAggregateIdentifier();
+        HashCode hash = Hashing.murmur3_128().hashBytes(snapshot.serializePayload(serializer, byte[].class).getData());
+        if(hash.equals(lastSnapshotHashes.getIfPresent(aggregateIdentifier))) {
+            metrics.recordSkipped();
+            LOGGER.debug("Skipped snapshot of aggregate " + aggregateIdentifier + " at sequence " + snapshot.getSequenceNumber() + ", state is unchanged");
+            return;
+        }
+        super.storeSnapshot(snapshot, serializer);
+        lastSnapshotHashes.put(aggregateIdentifier, hash);
+        metrics.recordStored();
+    }
+
+    @Override
+    protected void deleteSnapshots(String aggregateIdentifier, long sequenceNumber) {
+        // Older snapshots are removed by pruneSnapshots, keeping the write path to a single insert
+    }
+
+    public void pruneSnapshots(int maxAggregates) {
+        transactionManager.executeInTransaction(() -> {
+            EntityManager entityManager = entityManager();
+            List<String> aggregateIdentifiers = entityManager.createQuery(
+                    "SELECT e.aggregateIdentifier FROM " + snapshotEventEntryEntityName() + " e " +
+                            "GROUP BY e.aggregateIdentifier HAVING COUNT(e) > :keep", String.class)
+                    .setParameter("keep", (long) snapshotsToKeep)
+                    .setMaxResults(maxAggregates)
+                    .getResultList();
+            long pruned = 0;
+            long bytes = 0;
+            for(String aggregateIdentifier : aggregateIdentifiers) {
+                for(SnapshotEventEntry entry : obsoleteSnapshots(entityManager, aggregateIdentifier)) {
+                    bytes += entry.getPayload().getData().length + entry.getMetaData().getData().length;
+                    entityManager.remove(entry);
+                    pruned++;
+                }
+            }
+            metrics.recordPruneRun(pruned, bytes);
+            if(pruned > 0) {
+                LOGGER.info("Pruned " + pruned + " snapshots of " + aggregateIdentifiers.size() + " aggregates, reclaimed " + bytes + " bytes");
+            }
+        });
+    }
+
+    public SnapshotStoreMetrics getMetrics() {
+        return metrics;
+    }
+
+    private List<SnapshotEventEntry> obsoleteSnapshots(EntityManager entityManager, String aggregateIdentifier) {
+        return entityManager.createQuery(
+                "SELECT e FROM " + snapshotEventEntryEntityName() + " e " +
+                        "WHERE e.aggregateIdentifier = :aggregateIdentifier ORDER BY e.sequenceNumber DESC", SnapshotEventEntry.class)
+                .setParameter("aggregateIdentifier", aggregateIdentifier)
+                .setFirstResult(snapshotsToKeep)
+                .getResultList();
+    }
+}
@@ -0,0 +1,50 @@
+package com.transac.ProductsService.core.eventstore;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class SnapshotStoreMetrics {
+
+    private final AtomicLong snapshotsStored = new AtomicLong();
+    private final AtomicLong snapshotsSkipped = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong pruneRuns = new AtomicLong();
+    private final AtomicLong snapshotsPruned = new AtomicLong();
+    private final AtomicLong bytesReclaimed = new AtomicLong();
+
+    public void recordStored() {
+        snapshotsStored.incrementAndGet();
+    }
+
+    public void recordSkipped() {
+        snapshotsSkipped.incrementAndGet();
+    }
+
+    public void recordCompression(long originalSize, long compressedSize) {
+        uncompressedBytes.addAndGet(originalSize);
+        compressedBytes.addAndGet(compressedSize);
+    }
+
+    public void recordPruneRun(long pruned, long bytes) {
+        pruneRuns.incrementAndGet();
+        snapshotsPruned.addAndGet(pruned);
+        bytesReclaimed.addAndGet(bytes);
+    }
+
+    public Map<String, Object> getStatistics() {
+        long uncompressed = uncompressedBytes.get();
+        long compressed = compressedBytes.get();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("snapshotsStored", snapshotsStored.get());
+        statistics.put("snapshotsSkipped", snapshotsSkipped.get());
+        statistics.put("uncompressedBytes", uncompressed);
+        statistics.put("compressedBytes", compressed);
+        statistics.put("compressionRatio", uncompressed == 0 ? 1d : (double) compressed / uncompressed);
+        statistics.put("pruneRuns", pruneRuns.get());
+        statistics.put("snapshotsPruned", snapshotsPruned.get());
+        statistics.put("bytesReclaimed", bytesReclaimed.get());
+        return statistics;
+    }
+}
@@ -0,0 +1,80 @@
+package com.transac.ProductsService.core.management;
+
+import com.transac.ProductsService.core.data.ProductProjectionBatchWriter;
+import com.transac.ProductsService.core.eventstore.SnapshotRetainingJpaEventStorageEngine;
+import com.transac.ProductsService.query.ProductsQueryCache;
+import com.transac.core.caching.BoundedLruCache;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.idempotency.IdempotencyRegistry;
+import com.transac.core.snapshotting.AdaptiveSnapshotTriggerDefinition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/management/stats")
+public class ManagementStatsController {
+
+    @Autowired
+    private ProductProjectionBatchWriter productProjectionBatchWriter;
+
+    @Autowired
+    private ProductsQueryCache productsQueryCache;
+
+    @Autowired
+    private AdaptiveSnapshotTriggerDefinition productSnapshotTriggerDefinition;
+
+    @Autowired
+    private BoundedLruCache productCache;
+
+    @Autowired
+    private ProjectionPositionTracker productProjectionPositionTracker;
+
+    @Autowired
+    private IdempotencyRegistry idempotencyRegistry;
+
+    @Autowired(required = false)
+    private SnapshotRetainingJpaEventStorageEngine eventStorageEngine;
+
+    @GetMapping("/projection")
+    public Map<String, Object> getProjectionStatistics() {
+        return productProjectionBatchWriter.getStatistics();
+    }
+
+    @GetMapping("/query-cache")
+    public Map<String, Object> getQueryCacheStatistics() {
+        return productsQueryCache.getStatistics();
+    }
+
+    @GetMapping("/aggregate-cache")
+    public Map<String, Object> getAggregateCacheStatistics() {
+        return productCache.getStatistics();
+    }
+
+    @GetMapping("/snapshots")
+    public Map<String, Map<String, Object>> getSnapshotStatistics() {
+        return productSnapshotTriggerDefinition.getMetrics().getStatistics();
+    }
+
+    @GetMapping("/consistency")
+    public Map<String, Object> getConsistencyStatistics() {
+        return productProjectionPositionTracker.getStatistics();
+    }
+
+    @GetMapping("/idempotency")
+    public Map<String, Object> getIdempotencyStatistics() {
+        return idempotencyRegistry.getStatistics();
+    }
+
+    @GetMapping("/snapshot-store")
+    public ResponseEntity<Map<String, Object>> getSnapshotStoreStatistics() {
+        if(eventStorageEngine == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(eventStorageEngine.getMetrics().getStatistics());
+    }
+}
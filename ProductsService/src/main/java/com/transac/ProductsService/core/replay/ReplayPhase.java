@@ -0,0 +1,5 @@
+package com.transac.ProductsService.core.replay;
+
+public enum ReplayPhase {
+    SPLITTING, REPLAYING, MERGING, COMPLETED, FAILED
+}
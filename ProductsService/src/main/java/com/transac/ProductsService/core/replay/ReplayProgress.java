@@ -0,0 +1,26 @@
+package com.transac.ProductsService.core.replay;
+
+import lombok.Value;
+
+import java.time.Instant;
+import java.util.List;
+
+@Value
+public class ReplayProgress {
+    String processorName;
+    ReplayPhase phase;
+    int targetSegments;
+    Instant startedAt;
+    Long headPosition;
+    List<SegmentProgress> segments;
+
+    @Value
+    public static class SegmentProgress {
+        int segmentId;
+        int mask;
+        Long position;
+        boolean replaying;
+        double eventsPerSecond;
+        Long etaSeconds;
+    }
+}
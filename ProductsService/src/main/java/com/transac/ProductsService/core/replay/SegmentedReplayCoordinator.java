@@ -0,0 +1,208 @@
+package com.transac.ProductsService.core.replay;
+
+import com.transac.core.consistency.ProcessorTokenReader;
+import org.axonframework.eventhandling.EventTrackerStatus;
+import org.axonframework.eventhandling.ReplayToken;
+import org.axonframework.eventhandling.Segment;
+import org.axonframework.eventhandling.TrackingEventProcessor;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+@Component
+public class SegmentedReplayCoordinator {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(SegmentedReplayCoordinator.class);
+
+    private final EventStore eventStore;
+    private final ProcessorTokenReader processorTokenReader;
+    private final int maxSegments;
+    private final long monitorIntervalMillis;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "segmented-replay-monitor");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, Replay> replays = new ConcurrentHashMap<>();
+
+    public SegmentedReplayCoordinator(EventStore eventStore, ProcessorTokenReader processorTokenReader,
+                                      @Value("${products.replay.max-segments:4}") int maxSegments,
+                                      @Value("${products.replay.monitor-interval-ms:1000}") long monitorIntervalMillis) {
+        this.eventStore = eventStore;
+        this.processorTokenReader = processorTokenReader;
+        this.maxSegments = maxSegments;
+        this.monitorIntervalMillis = monitorIntervalMillis;
+    }
+
+    public int startReplay(String processorName, TrackingEventProcessor eventProcessor, int requestedSegments) {
+        int targetSegments = Math.max(1, Math.min(requestedSegments, maxSegments));
+        Replay replay = new Replay(processorName, eventProcessor, targetSegments);
+        Replay previous = replays.put(processorName, replay);
+        if(previous != null) {
+            previous.cancel();
+        }
+        replay.monitor = scheduler.scheduleWithFixedDelay(() -> monitor(replay), monitorIntervalMillis, monitorIntervalMillis, TimeUnit.MILLISECONDS);
+        LOGGER.info("Started replay of event processor " + processorName + " with " + targetSegments + " segments");
+        return targetSegments;
+    }
+
+    public Optional<ReplayProgress> getProgress(String processorName) {
+        return Optional.ofNullable(replays.get(processorName)).map(this::progress);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private void monitor(Replay replay) {
+        try {
+            Map<Integer, EventTrackerStatus> status = replay.eventProcessor.processingStatus();
+            replay.sample(status);
+            if(replay.pendingOperation != null) {
+                if(!replay.pendingOperation.isDone()) {
+                    return;
+                }
+                if(!replay.pendingOperation.getNow(false) && replay.phase == ReplayPhase.SPLITTING) {
+                    replay.splits--;
+                }
+                replay.pendingOperation = null;
+            }
+            switch(replay.phase) {
+                case SPLITTING:
+                    if(replay.splits >= replay.targetSegments - 1) {
+                        replay.phase = ReplayPhase.REPLAYING;
+                    } else {
+                        // Split the widest claimed segment so the segments stay evenly sized
+                        status.values().stream()
+                                .map(EventTrackerStatus::getSegment)
+                                .min(Comparator.comparingInt(Segment::getMask))
+                                .ifPresent(segment -> {
+                                    replay.pendingOperation = replay.eventProcessor.splitSegment(segment.getSegmentId());
+                                    replay.splits++;
+                                });
+                    }
+                    break;
+                case REPLAYING:
+                    // Other instances may hold some of the segments, so the stored tokens of all of them decide
+                    Map<Integer, TrackingToken> tokens = processorTokenReader.readTokens(replay.processorName);
+                    if(!tokens.isEmpty() && tokens.values().stream().noneMatch(token -> token instanceof ReplayToken)
+                            && status.values().stream().noneMatch(EventTrackerStatus::isReplaying)) {
+                        replay.phase = ReplayPhase.MERGING;
+                        LOGGER.info("Event processor " + replay.processorName + " caught up, merging segments");
+                    }
+                    break;
+                case MERGING:
+                    if(processorTokenReader.readTokens(replay.processorName).size() == 1) {
+                        replay.phase = ReplayPhase.COMPLETED;
+                        replay.cancel();
+                        LOGGER.info("Replay of event processor " + replay.processorName + " completed");
+                    } else {
+                        status.values().stream()
+                                .map(EventTrackerStatus::getSegment)
+                                .max(Comparator.comparingInt(Segment::getMask))
+                                .ifPresent(segment -> replay.pendingOperation = replay.eventProcessor.mergeSegment(segment.getSegmentId()));
+                    }
+                    break;
+                default:
+                    replay.cancel();
+            }
+        } catch (Exception e) {
+            LOGGER.error("Replay of event processor " + replay.processorName + " failed: " + e.getMessage());
+            replay.phase = ReplayPhase.FAILED;
+            replay.cancel();
+        }
+    }
+
+    private ReplayProgress progress(Replay replay) {
+        Long headPosition = headPosition();
+        List<ReplayProgress.SegmentProgress> segments = new ArrayList<>();
+        for(EventTrackerStatus status : replay.eventProcessor.processingStatus().values()) {
+            Segment segment = status.getSegment();
+            OptionalLong position = status.getCurrentPosition();
+            double eventsPerSecond = replay.eventsPerSecond.getOrDefault(segment.getSegmentId(), 0d);
+            Long etaSeconds = null;
+            if(headPosition != null && position.isPresent() && eventsPerSecond > 0) {
+                etaSeconds = (long) Math.ceil(Math.max(0, headPosition - position.getAsLong()) / eventsPerSecond);
+            }
+            segments.add(new ReplayProgress.SegmentProgress(
+                    segment.getSegmentId(),
+                    segment.getMask(),
+                    position.isPresent() ? position.getAsLong() : null,
+                    status.isReplaying(),
+                    eventsPerSecond,
+                    etaSeconds
+            ));
+        }
+        segments.sort(Comparator.comparingInt(ReplayProgress.SegmentProgress::getSegmentId));
+        return new ReplayProgress(replay.processorName, replay.phase, replay.targetSegments, replay.startedAt, headPosition, segments);
+    }
+
+    private Long headPosition() {
+        TrackingToken headToken = eventStore.createHeadToken();
+        if(headToken == null) {
+            return null;
+        }
+        OptionalLong position = headToken.position();
+        return position.isPresent() ? position.getAsLong() : null;
+    }
+
+    private static class Replay {
+        private final String processorName;
+        private final TrackingEventProcessor eventProcessor;
+        private final int targetSegments;
+        private final Instant startedAt = Instant.now();
+        private final Map<Integer, Long> lastPositions = new ConcurrentHashMap<>();
+        private final Map<Integer, Long> lastSampleTimes = new ConcurrentHashMap<>();
+        private final Map<Integer, Double> eventsPerSecond = new ConcurrentHashMap<>();
+        private volatile ReplayPhase phase;
+        private volatile CompletableFuture<Boolean> pendingOperation;
+        private volatile ScheduledFuture<?> monitor;
+        private int splits;
+
+        Replay(String processorName, TrackingEventProcessor eventProcessor, int targetSegments) {
+            this.processorName = processorName;
+            this.eventProcessor = eventProcessor;
+            this.targetSegments = targetSegments;
+            this.phase = targetSegments > 1 ? ReplayPhase.SPLITTING : ReplayPhase.REPLAYING;
+        }
+
+        void sample(Map<Integer, EventTrackerStatus> status) {
+            long now = System.nanoTime();
+            status.forEach((segmentId, trackerStatus) -> trackerStatus.getCurrentPosition().ifPresent(position -> {
+                Long lastPosition = lastPositions.put(segmentId, position);
+                Long lastSampleTime = lastSampleTimes.put(segmentId, now);
+                if(lastPosition != null && lastSampleTime != null && now > lastSampleTime) {
+                    eventsPerSecond.put(segmentId, (position - lastPosition) * 1_000_000_000d / (now - lastSampleTime));
+                }
+            }));
+            lastPositions.keySet().retainAll(status.keySet());
+            lastSampleTimes.keySet().retainAll(status.keySet());
+            eventsPerSecond.keySet().retainAll(status.keySet());
+        }
+
+        void cancel() {
+            if(monitor != null) {
+                monitor.cancel(false);
+            }
+        }
+    }
+}
@@ -1,4 +1,17 @@
 package com.transac.ProductsService.query;
 
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+@Builder(toBuilder = true)
 public class FindProductsQuery {
+    String afterProductId;
+    int pageSize;
+    boolean inStockOnly;
+    BigDecimal minPrice;
+    BigDecimal maxPrice;
+    Long minPosition;
 }
@@ -1,12 +1,14 @@
 package com.transac.ProductsService.query;
 
 import com.transac.ProductsService.core.data.ProductEntity;
+import com.transac.ProductsService.core.data.ProductProjectionBatchWriter;
 import com.transac.ProductsService.core.data.ProductsRepository;
 import com.transac.ProductsService.core.events.ProductCreatedEvent;
 import com.transac.core.events.ProductReservationCancelledEvent;
 import com.transac.core.events.ProductReservedEvent;
 import org.axonframework.config.ProcessingGroup;
 import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventhandling.ReplayStatus;
 import org.axonframework.eventhandling.ResetHandler;
 import org.axonframework.messaging.interceptors.ExceptionHandler;
 import org.slf4j.Logger;
@@ -19,10 +21,15 @@ import org.springframework.stereotype.Component;
 public class ProductEventsHandler {
 
     private final ProductsRepository productsRepository;
+    private final ProductProjectionBatchWriter productProjectionBatchWriter;
+    private final ProductsQueryCache productsQueryCache;
     private static final Logger LOGGER = LoggerFactory.getLogger(ProductEventsHandler.class);
 
-    public ProductEventsHandler(ProductsRepository productsRepository) {
+    public ProductEventsHandler(ProductsRepository productsRepository, ProductProjectionBatchWriter productProjectionBatchWriter,
+                                ProductsQueryCache productsQueryCache) {
         this.productsRepository = productsRepository;
+        this.productProjectionBatchWriter = productProjectionBatchWriter;
+        this.productsQueryCache = productsQueryCache;
     }
 
     @ExceptionHandler(resultType = Exception.class)
@@ -36,35 +43,50 @@ public class ProductEventsHandler {
     }
 
     @EventHandler
-    public void on(ProductCreatedEvent event) {
+    public void on(ProductCreatedEvent event, ReplayStatus replayStatus) {
         ProductEntity productEntity = new ProductEntity();
         BeanUtils.copyProperties(event, productEntity);
-        try {
-            productsRepository.save(productEntity);
-        } catch (IllegalArgumentException e) {
-            e.printStackTrace();
+        if(replayStatus.isReplay()) {
+            // Rows are rebuilt from scratch during a replay, so insert without the read JPA's save would do
+            productProjectionBatchWriter.addProduct(productEntity);
+        } else {
+            try {
+                productsRepository.save(productEntity);
+            } catch (IllegalArgumentException e) {
+                e.printStackTrace();
+            }
         }
     }
 
     @EventHandler
-    public void on(ProductReservedEvent event) {
-        ProductEntity productEntity = productsRepository.findByProductId(event.getProductId());
-        productEntity.setQuantity(productEntity.getQuantity() - event.getQuantity());
-        productsRepository.save(productEntity);
+    public void on(ProductReservedEvent event, ReplayStatus replayStatus) {
+        if(productProjectionBatchWriter.isEnabled() || replayStatus.isReplay()) {
+            productProjectionBatchWriter.addStockDelta(event.getProductId(), -event.getQuantity());
+        } else {
+            ProductEntity productEntity = productsRepository.findByProductId(event.getProductId());
+            productEntity.setQuantity(productEntity.getQuantity() - event.getQuantity());
+            productsRepository.save(productEntity);
+        }
 
         LOGGER.info("ProductReservedEvent is called for orderId: " + event.getOrderId() +
                 " and productId: " + event.getProductId());
     }
 
     @EventHandler
-    public void on(ProductReservationCancelledEvent event) {
-        ProductEntity productEntity = productsRepository.findByProductId(event.getProductId());
-        productEntity.setQuantity(productEntity.getQuantity() + event.getQuantity());
-        productsRepository.save(productEntity);
+    public void on(ProductReservationCancelledEvent event, ReplayStatus replayStatus) {
+        if(productProjectionBatchWriter.isEnabled() || replayStatus.isReplay()) {
+            productProjectionBatchWriter.addStockDelta(event.getProductId(), event.getQuantity());
+        } else {
+            ProductEntity productEntity = productsRepository.findByProductId(event.getProductId());
+            productEntity.setQuantity(productEntity.getQuantity() + event.getQuantity());
+            productsRepository.save(productEntity);
+        }
     }
 
+    // Pages are otherwise invalidated by ProductsQueryCacheEventsHandler on every instance
     @ResetHandler
     public void reset() {
-        productsRepository.deleteAll();
+        productsRepository.deleteAllInBatch();
+        productsQueryCache.invalidateAll();
     }
 }
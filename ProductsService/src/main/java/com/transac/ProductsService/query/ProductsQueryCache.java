@@ -0,0 +1,150 @@
+package com.transac.ProductsService.query;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.RemovalNotification;
+import com.transac.ProductsService.query.rest.ProductRestModel;
+import com.transac.ProductsService.query.rest.ProductsPageRestModel;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Component
+public class ProductsQueryCache {
+
+    private final Cache<FindProductsQuery, ProductsPageRestModel> cache;
+    // Cached pages by the products they show, so a stock change only touches those pages
+    private final Map<String, Map<FindProductsQuery, ProductsPageRestModel>> pagesByProduct = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ProductsQueryCache(@Value("${products.query.cache.max-size:1000}") long maxSize,
+                              @Value("${products.query.cache.ttl-ms:30000}") long ttlMillis) {
+        // The TTL bounds how long a page stays stale when an invalidation gives up waiting for the projection
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttlMillis, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .removalListener(this::unindex)
+                .build();
+    }
+
+    public ProductsPageRestModel get(FindProductsQuery query, Supplier<ProductsPageRestModel> loader) {
+        ProductsPageRestModel page = cache.getIfPresent(query);
+        if(page != null) {
+            return copyOf(page);
+        }
+
+        long loadGeneration = generation.get();
+        ProductsPageRestModel loadedPage = loader.get();
+        if(loadGeneration == generation.get()) {
+            page = copyOf(loadedPage);
+            cache.put(query, page);
+            index(query, page);
+            // An invalidation may have raced with the put above, so drop the page if it could be stale
+            if(loadGeneration != generation.get()) {
+                cache.asMap().remove(query, page);
+            }
+        }
+        return loadedPage;
+    }
+
+    public void invalidate(String productId) {
+        generation.incrementAndGet();
+        Map<FindProductsQuery, ProductsPageRestModel> pages = pagesByProduct.remove(productId);
+        if(pages == null) {
+            return;
+        }
+        for(Map.Entry<FindProductsQuery, ProductsPageRestModel> entry : pages.entrySet()) {
+            if(cache.asMap().remove(entry.getKey(), entry.getValue())) {
+                invalidations.incrementAndGet();
+            }
+        }
+    }
+
+    public void invalidateInsert(String productId, boolean inStockOnly) {
+        generation.incrementAndGet();
+        // A product that was not shown before can only enter the pages whose keyset range covers it
+        cache.asMap().entrySet().removeIf(entry -> {
+            boolean covered = (!inStockOnly || entry.getKey().isInStockOnly())
+                    && covers(entry.getKey(), entry.getValue(), productId);
+            if(covered) {
+                invalidations.incrementAndGet();
+            }
+            return covered;
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        invalidations.addAndGet(cache.size());
+        cache.invalidateAll();
+    }
+
+    public Map<String, Object> getStatistics() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("size", cache.size());
+        statistics.put("hits", stats.hitCount());
+        statistics.put("misses", stats.missCount());
+        statistics.put("hitRate", stats.hitRate());
+        statistics.put("evictions", stats.evictionCount());
+        statistics.put("invalidations", invalidations.get());
+        statistics.put("indexedProducts", pagesByProduct.size());
+        return statistics;
+    }
+
+    private void index(FindProductsQuery query, ProductsPageRestModel page) {
+        for(ProductRestModel product : page.getProducts()) {
+            pagesByProduct.compute(product.getProductId(), (productId, pages) -> {
+                Map<FindProductsQuery, ProductsPageRestModel> indexedPages = pages == null ? new HashMap<>() : pages;
+                indexedPages.put(query, page);
+                return indexedPages;
+            });
+        }
+    }
+
+    private void unindex(RemovalNotification<FindProductsQuery, ProductsPageRestModel> notification) {
+        ProductsPageRestModel page = notification.getValue();
+        if(page == null) {
+            return;
+        }
+        for(ProductRestModel product : page.getProducts()) {
+            // Only drop this exact page, a newer page for the same query may already be indexed
+            pagesByProduct.computeIfPresent(product.getProductId(), (productId, pages) -> {
+                pages.remove(notification.getKey(), page);
+                return pages.isEmpty() ? null : pages;
+            });
+        }
+    }
+
+    private static boolean covers(FindProductsQuery query, ProductsPageRestModel page, String productId) {
+        boolean afterStart = query.getAfterProductId() == null || productId.compareTo(query.getAfterProductId()) > 0;
+        boolean beforeEnd = page.getNextCursor() == null || productId.compareTo(page.getNextCursor()) <= 0;
+        return afterStart && beforeEnd;
+    }
+
+    private static ProductsPageRestModel copyOf(ProductsPageRestModel page) {
+        // Callers get their own models, the cached page is never handed out
+        List<ProductRestModel> products = new ArrayList<>(page.getProducts().size());
+        for(ProductRestModel product : page.getProducts()) {
+            ProductRestModel productCopy = new ProductRestModel();
+            productCopy.setProductId(product.getProductId());
+            productCopy.setTitle(product.getTitle());
+            productCopy.setPrice(product.getPrice());
+            productCopy.setQuantity(product.getQuantity());
+            products.add(productCopy);
+        }
+        return new ProductsPageRestModel(products, page.getNextCursor());
+    }
+}
@@ -0,0 +1,50 @@
+package com.transac.ProductsService.query;
+
+import com.transac.ProductsService.core.events.ProductCreatedEvent;
+import com.transac.core.consistency.ProcessorTokenReader;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.events.ProductReservationCancelledEvent;
+import com.transac.core.events.ProductReservedEvent;
+import org.axonframework.eventhandling.EventHandler;
+import org.axonframework.eventhandling.TrackingToken;
+import org.springframework.stereotype.Component;
+
+// Runs on this instance's own processor, so every instance drops its pages, not just the one projecting the products
+@Component
+public class ProductsQueryCacheEventsHandler {
+
+    private final ProductsQueryCache productsQueryCache;
+    private final ProjectionPositionTracker productProjectionPositionTracker;
+
+    public ProductsQueryCacheEventsHandler(ProductsQueryCache productsQueryCache,
+                                           ProjectionPositionTracker productProjectionPositionTracker) {
+        this.productsQueryCache = productsQueryCache;
+        this.productProjectionPositionTracker = productProjectionPositionTracker;
+    }
+
+    @EventHandler
+    public void on(ProductCreatedEvent event, TrackingToken token) {
+        afterProjection(token, () -> productsQueryCache.invalidateInsert(event.getProductId(), false));
+    }
+
+    @EventHandler
+    public void on(ProductReservedEvent event, TrackingToken token) {
+        afterProjection(token, () -> productsQueryCache.invalidate(event.getProductId()));
+    }
+
+    @EventHandler
+    public void on(ProductReservationCancelledEvent event, TrackingToken token) {
+        afterProjection(token, () -> {
+            productsQueryCache.invalidate(event.getProductId());
+            // Restocked products may show up again on in-stock-only pages
+            productsQueryCache.invalidateInsert(event.getProductId(), true);
+        });
+    }
+
+    // This processor can run ahead of product-group, and a page reloaded in between would be cached stale.
+    // A timed out wait still invalidates, the cache TTL covers a projection that is further behind
+    private void afterProjection(TrackingToken token, Runnable invalidation) {
+        productProjectionPositionTracker.awaitPosition(ProcessorTokenReader.position(token))
+                .whenComplete((caughtUp, exception) -> invalidation.run());
+    }
+}
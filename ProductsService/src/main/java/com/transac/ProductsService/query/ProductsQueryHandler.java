@@ -3,31 +3,78 @@ package com.transac.ProductsService.query;
 import com.transac.ProductsService.core.data.ProductEntity;
 import com.transac.ProductsService.core.data.ProductsRepository;
 import com.transac.ProductsService.query.rest.ProductRestModel;
+import com.transac.ProductsService.query.rest.ProductsPageRestModel;
+import com.transac.core.consistency.ProjectionPositionTracker;
 import org.axonframework.queryhandling.QueryHandler;
-import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @Component
 public class ProductsQueryHandler {
 
     private final ProductsRepository productsRepository;
+    private final ProductsQueryCache productsQueryCache;
+    private final ProjectionPositionTracker productProjectionPositionTracker;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
-    public ProductsQueryHandler(ProductsRepository productsRepository) {
+    public ProductsQueryHandler(ProductsRepository productsRepository,
+                                ProductsQueryCache productsQueryCache,
+                                ProjectionPositionTracker productProjectionPositionTracker,
+                                @Value("${products.query.default-page-size:20}") int defaultPageSize,
+                                @Value("${products.query.max-page-size:100}") int maxPageSize) {
         this.productsRepository = productsRepository;
+        this.productsQueryCache = productsQueryCache;
+        this.productProjectionPositionTracker = productProjectionPositionTracker;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
     }
 
     @QueryHandler
-    public List<ProductRestModel> findProducts(FindProductsQuery query) {
-        List<ProductRestModel> productsRest = new ArrayList<>();
-        List<ProductEntity> storedProducts = productsRepository.findAll();
-        for(ProductEntity productEntity : storedProducts) {
-            ProductRestModel productRestModel = new ProductRestModel();
-            BeanUtils.copyProperties(productEntity, productRestModel);
-            productsRest.add(productRestModel);
+    public CompletableFuture<ProductsPageRestModel> findProducts(FindProductsQuery query) {
+        // The min position only decides when to answer, it is not part of the cached page
+        FindProductsQuery pageQuery = query.toBuilder().minPosition(null).build();
+        if(query.getMinPosition() == null) {
+            return CompletableFuture.completedFuture(productsQueryCache.get(pageQuery, () -> loadProducts(pageQuery)));
         }
-        return productsRest;
+        // Cached pages are only dropped some time after the projection has moved, so a caller that has seen a position reads the projection
+        return productProjectionPositionTracker.awaitPosition(query.getMinPosition())
+                .thenApply(caughtUp -> loadProducts(pageQuery));
+    }
+
+    private ProductsPageRestModel loadProducts(FindProductsQuery query) {
+        int pageSize = query.getPageSize() <= 0 ? defaultPageSize : Math.min(query.getPageSize(), maxPageSize);
+        String afterProductId = query.getAfterProductId() == null ? "" : query.getAfterProductId();
+
+        // Fetch one extra row to find out whether another page follows
+        List<ProductEntity> storedProducts = productsRepository.findPage(
+                afterProductId,
+                query.isInStockOnly() ? 1 : Integer.MIN_VALUE,
+                query.getMinPrice(),
+                query.getMaxPrice(),
+                PageRequest.of(0, pageSize + 1)
+        );
+
+        boolean hasNextPage = storedProducts.size() > pageSize;
+        List<ProductRestModel> productsRest = new ArrayList<>(Math.min(storedProducts.size(), pageSize));
+        for(ProductEntity productEntity : storedProducts.subList(0, Math.min(storedProducts.size(), pageSize))) {
+            productsRest.add(toRestModel(productEntity));
+        }
+        String nextCursor = hasNextPage ? productsRest.get(productsRest.size() - 1).getProductId() : null;
+        return new ProductsPageRestModel(productsRest, nextCursor);
+    }
+
+    private static ProductRestModel toRestModel(ProductEntity productEntity) {
+        ProductRestModel productRestModel = new ProductRestModel();
+        productRestModel.setProductId(productEntity.getProductId());
+        productRestModel.setTitle(productEntity.getTitle());
+        productRestModel.setPrice(productEntity.getPrice());
+        productRestModel.setQuantity(productEntity.getQuantity());
+        return productRestModel;
     }
 }
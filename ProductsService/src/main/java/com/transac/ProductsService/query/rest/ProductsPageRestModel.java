@@ -0,0 +1,15 @@
+package com.transac.ProductsService.query.rest;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductsPageRestModel {
+    private List<ProductRestModel> products;
+    private String nextCursor;
+}
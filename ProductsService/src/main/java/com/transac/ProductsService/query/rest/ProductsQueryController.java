@@ -1,14 +1,18 @@
 package com.transac.ProductsService.query.rest;
 
 import com.transac.ProductsService.query.FindProductsQuery;
+import com.transac.core.consistency.ProjectionPositionTracker;
 import org.axonframework.messaging.responsetypes.ResponseTypes;
 import org.axonframework.queryhandling.QueryGateway;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/products")
@@ -18,12 +22,22 @@ public class ProductsQueryController {
     QueryGateway queryGateway;
 
     @GetMapping
-    public List<ProductRestModel> getProducts() {
-        FindProductsQuery productsQuery = new FindProductsQuery();
-        List<ProductRestModel> products = queryGateway.query(
+    public CompletableFuture<ProductsPageRestModel> getProducts(@RequestParam(required = false) String cursor,
+                                                                @RequestParam(defaultValue = "0") int size,
+                                                                @RequestParam(defaultValue = "false") boolean inStockOnly,
+                                                                @RequestParam(required = false) BigDecimal minPrice,
+                                                                @RequestParam(required = false) BigDecimal maxPrice,
+                                                                @RequestHeader(name = ProjectionPositionTracker.CONSISTENCY_TOKEN_HEADER, required = false) Long consistencyToken) {
+        FindProductsQuery productsQuery = FindProductsQuery.builder()
+                .afterProductId(cursor)
+                .pageSize(size)
+                .inStockOnly(inStockOnly)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .minPosition(consistencyToken).build();
+        return queryGateway.query(
                 productsQuery,
-                ResponseTypes.multipleInstancesOf(ProductRestModel.class)
-        ).join();
-        return products;
+                ResponseTypes.instanceOf(ProductsPageRestModel.class)
+        );
     }
 }
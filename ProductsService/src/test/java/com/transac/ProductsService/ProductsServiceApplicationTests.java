@@ -1,13 +1,42 @@
 package com.transac.ProductsService;
 
+import com.transac.core.idempotency.IdempotencyKeyEntity;
+import org.axonframework.eventhandling.tokenstore.jpa.TokenEntry;
+import org.axonframework.eventsourcing.eventstore.jpa.DomainEventEntry;
+import org.axonframework.eventsourcing.eventstore.jpa.SnapshotEventEntry;
+import org.axonframework.modelling.saga.repository.jpa.AssociationValueEntry;
+import org.axonframework.modelling.saga.repository.jpa.SagaEntry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.metamodel.EntityType;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @SpringBootTest
 class ProductsServiceApplicationTests {
 
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
 	@Test
 	void contextLoads() {
 	}
 
+	// Processors still start when a token or saga table is unmapped, they only fail on every poll
+	@Test
+	void axonAndCoreEntitiesAreMapped() {
+		Set<Class<?>> mappedTypes = entityManagerFactory.getMetamodel().getEntities().stream()
+				.map(EntityType::getJavaType)
+				.collect(Collectors.toSet());
+		for(Class<?> entityType : Set.of(TokenEntry.class, SagaEntry.class, AssociationValueEntry.class,
+				DomainEventEntry.class, SnapshotEventEntry.class, IdempotencyKeyEntity.class)) {
+			assertTrue(mappedTypes.contains(entityType), entityType.getSimpleName() + " is not mapped");
+		}
+	}
+
 }
@@ -0,0 +1,104 @@
+package com.transac.ProductsService.command;
+
+import com.transac.ProductsService.core.data.ProductLookupEntity;
+import com.transac.ProductsService.core.data.ProductLookupRepository;
+import com.transac.core.consistency.ProcessorTokenReader;
+import org.axonframework.eventhandling.EventTrackerStatus;
+import org.axonframework.eventhandling.GlobalSequenceTrackingToken;
+import org.axonframework.eventhandling.ReplayToken;
+import org.axonframework.eventhandling.TrackingToken;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProductUniquenessIndexTests {
+
+    private final ProductLookupRepository productLookupRepository = mock(ProductLookupRepository.class);
+    private final ProcessorTokenReader processorTokenReader = mock(ProcessorTokenReader.class);
+    private ProductUniquenessIndex index;
+
+    @BeforeEach
+    void setUp() {
+        when(productLookupRepository.findAll()).thenReturn(List.of(new ProductLookupEntity("product-1", " Phone ", null)));
+        when(processorTokenReader.readTokens(anyString())).thenReturn(Map.of(0, new GlobalSequenceTrackingToken(10)));
+        index = new ProductUniquenessIndex(productLookupRepository, processorTokenReader, 1000, 0.01);
+    }
+
+    @Test
+    void everyProductIsPossibleUntilCaughtUp() {
+        index.warmUp();
+        assertEquals(ProductUniquenessIndex.Match.POSSIBLE, index.lookup("product-2", "Laptop"));
+
+        catchUp(false);
+        assertEquals(ProductUniquenessIndex.Match.POSSIBLE, index.lookup("product-2", "Laptop"));
+    }
+
+    @Test
+    void knownProductIdOrTitleIsConfirmed() {
+        index.warmUp();
+        catchUp(true);
+
+        assertEquals(ProductUniquenessIndex.Match.CONFIRMED, index.lookup("product-1", "Laptop"));
+        assertEquals(ProductUniquenessIndex.Match.CONFIRMED, index.lookup("product-2", "phone"));
+        assertEquals(ProductUniquenessIndex.Match.CONFIRMED, index.lookup("product-2", "  PHONE"));
+    }
+
+    @Test
+    void unknownProductIsNotMatched() {
+        index.warmUp();
+        catchUp(true);
+
+        assertEquals(ProductUniquenessIndex.Match.NONE, index.lookup("product-2", "Laptop"));
+    }
+
+    @Test
+    void addedProductIsConfirmed() {
+        index.warmUp();
+        catchUp(true);
+        index.add("product-2", "Laptop");
+
+        assertEquals(ProductUniquenessIndex.Match.CONFIRMED, index.lookup("product-3", "laptop"));
+    }
+
+    @Test
+    void eventsAreFollowedFromTheLowestProjectedPosition() {
+        when(processorTokenReader.readTokens(anyString())).thenReturn(Map.of(
+                0, new GlobalSequenceTrackingToken(10),
+                1, ReplayToken.createReplayToken(new GlobalSequenceTrackingToken(10), new GlobalSequenceTrackingToken(4))));
+
+        TrackingToken token = index.warmUp();
+
+        assertEquals(new GlobalSequenceTrackingToken(4), token);
+    }
+
+    @Test
+    void eventsAreFollowedFromTheStartWhenASegmentHasNotProjectedAnything() {
+        Map<Integer, TrackingToken> tokens = new HashMap<>();
+        tokens.put(0, new GlobalSequenceTrackingToken(10));
+        tokens.put(1, null);
+        when(processorTokenReader.readTokens(anyString())).thenReturn(tokens);
+
+        assertNull(index.warmUp());
+    }
+
+    @Test
+    void indexAndDatabaseNormalizeTitlesAlike() {
+        assertEquals("phone case", ProductUniquenessIndex.normalize("  Phone CASE "));
+        assertEquals("", ProductUniquenessIndex.normalize(null));
+    }
+
+    private void catchUp(boolean caughtUp) {
+        EventTrackerStatus status = mock(EventTrackerStatus.class);
+        when(status.isCaughtUp()).thenReturn(caughtUp);
+        index.catchUpListener().onEventTrackerStatusChange(Map.of(0, status));
+    }
+}
@@ -0,0 +1,48 @@
+package com.transac.ProductsService.query;
+
+import com.transac.ProductsService.core.events.ProductCreatedEvent;
+import com.transac.core.consistency.ProjectionPositionTracker;
+import com.transac.core.events.ProductReservedEvent;
+import org.axonframework.eventhandling.GlobalSequenceTrackingToken;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ProductsQueryCacheEventsHandlerTests {
+
+    private final ProductsQueryCache productsQueryCache = mock(ProductsQueryCache.class);
+    private final ProjectionPositionTracker productProjectionPositionTracker = mock(ProjectionPositionTracker.class);
+    private final ProductsQueryCacheEventsHandler handler = new ProductsQueryCacheEventsHandler(productsQueryCache, productProjectionPositionTracker);
+
+    @Test
+    void pagesAreOnlyDroppedOnceTheProjectionHasTheEvent() {
+        CompletableFuture<Void> projected = new CompletableFuture<>();
+        when(productProjectionPositionTracker.awaitPosition(7L)).thenReturn(projected);
+
+        handler.on(ProductReservedEvent.builder().productId("a").quantity(1).orderId("o").userId("u").build(),
+                new GlobalSequenceTrackingToken(7));
+        verify(productsQueryCache, never()).invalidate("a");
+
+        projected.complete(null);
+        verify(productsQueryCache).invalidate("a");
+    }
+
+    @Test
+    void pagesAreDroppedWhenTheWaitTimesOut() {
+        CompletableFuture<Void> projected = new CompletableFuture<>();
+        when(productProjectionPositionTracker.awaitPosition(3L)).thenReturn(projected);
+        ProductCreatedEvent event = new ProductCreatedEvent();
+        event.setProductId("b");
+
+        handler.on(event, new GlobalSequenceTrackingToken(3));
+        projected.completeExceptionally(new TimeoutException());
+
+        verify(productsQueryCache).invalidateInsert("b", false);
+    }
+}
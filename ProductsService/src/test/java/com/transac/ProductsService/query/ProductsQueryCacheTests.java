@@ -0,0 +1,136 @@
+package com.transac.ProductsService.query;
+
+import com.transac.ProductsService.query.rest.ProductRestModel;
+import com.transac.ProductsService.query.rest.ProductsPageRestModel;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+class ProductsQueryCacheTests {
+
+    private static final FindProductsQuery FIRST_PAGE = FindProductsQuery.builder().pageSize(2).build();
+    private static final FindProductsQuery SECOND_PAGE = FindProductsQuery.builder().afterProductId("b").pageSize(2).build();
+    private static final FindProductsQuery IN_STOCK_PAGE = FindProductsQuery.builder().pageSize(2).inStockOnly(true).build();
+
+    private final ProductsQueryCache cache = new ProductsQueryCache(100, 60_000);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void repeatedQueriesAreServedFromTheCache() {
+        load(FIRST_PAGE, page("b", "a", "b"));
+        load(FIRST_PAGE, page("b", "a", "b"));
+
+        assertEquals(1, loads.get());
+        assertEquals(1L, cache.getStatistics().get("hits"));
+    }
+
+    @Test
+    void callersCannotChangeTheCachedPage() {
+        ProductsPageRestModel loaded = load(FIRST_PAGE, page("b", "a", "b"));
+        loaded.getProducts().get(0).setQuantity(0);
+        ProductsPageRestModel cached = load(FIRST_PAGE, page("b", "a", "b"));
+        cached.getProducts().get(1).setQuantity(0);
+        cached.getProducts().clear();
+
+        ProductsPageRestModel reread = load(FIRST_PAGE, page("b", "a", "b"));
+        assertEquals(1, loads.get());
+        assertNotSame(cached, reread);
+        assertEquals(2, reread.getProducts().size());
+        assertEquals(5, reread.getProducts().get(0).getQuantity());
+        assertEquals(5, reread.getProducts().get(1).getQuantity());
+    }
+
+    @Test
+    void stockChangesOnlyDropThePagesShowingTheProduct() {
+        load(FIRST_PAGE, page("b", "a", "b"));
+        load(SECOND_PAGE, page(null, "c", "d"));
+
+        cache.invalidate("c");
+        load(FIRST_PAGE, page("b", "a", "b"));
+        load(SECOND_PAGE, page(null, "c", "d"));
+
+        assertEquals(3, loads.get());
+        assertEquals(1L, cache.getStatistics().get("invalidations"));
+    }
+
+    @Test
+    void newProductsDropThePagesWhoseRangeCoversThem() {
+        load(FIRST_PAGE, page("b", "a", "b"));
+        load(SECOND_PAGE, page(null, "c", "d"));
+
+        cache.invalidateInsert("bb", false);
+        load(FIRST_PAGE, page("b", "a", "b"));
+        load(SECOND_PAGE, page(null, "bb", "c"));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void restockedProductsOnlyDropInStockOnlyPages() {
+        load(FIRST_PAGE, page(null, "a", "b"));
+        load(IN_STOCK_PAGE, page(null, "a"));
+
+        cache.invalidateInsert("b", true);
+        load(FIRST_PAGE, page(null, "a", "b"));
+        load(IN_STOCK_PAGE, page(null, "a", "b"));
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictedPagesLeaveTheProductIndex() {
+        ProductsQueryCache smallCache = new ProductsQueryCache(1, 60_000);
+        smallCache.get(FIRST_PAGE, () -> page("b", "a", "b"));
+        smallCache.get(SECOND_PAGE, () -> page(null, "c", "d"));
+
+        assertEquals(2, smallCache.getStatistics().get("indexedProducts"));
+    }
+
+    @Test
+    void pagesLoadedDuringAnInvalidationAreNotCached() {
+        cache.get(FIRST_PAGE, () -> {
+            loads.incrementAndGet();
+            cache.invalidate("a");
+            return page("b", "a", "b");
+        });
+        load(FIRST_PAGE, page("b", "a", "b"));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void invalidateAllDropsEveryPage() {
+        load(FIRST_PAGE, page("b", "a", "b"));
+        load(SECOND_PAGE, page(null, "c", "d"));
+
+        cache.invalidateAll();
+
+        assertEquals(0L, cache.getStatistics().get("size"));
+    }
+
+    private ProductsPageRestModel load(FindProductsQuery query, ProductsPageRestModel page) {
+        return cache.get(query, () -> {
+            loads.incrementAndGet();
+            return page;
+        });
+    }
+
+    private static ProductsPageRestModel page(String nextCursor, String... productIds) {
+        List<ProductRestModel> products = new ArrayList<>();
+        for(String productId : productIds) {
+            ProductRestModel product = new ProductRestModel();
+            product.setProductId(productId);
+            product.setTitle("Product " + productId);
+            product.setPrice(BigDecimal.TEN);
+            product.setQuantity(5);
+            products.add(product);
+        }
+        return new ProductsPageRestModel(products, nextCursor);
+    }
+}
@@ -0,0 +1,138 @@
+package com.transac.core.caching;
+
+import org.axonframework.common.Registration;
+import org.axonframework.common.caching.Cache;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class BoundedLruCache implements Cache {
+
+    private final int maxSize;
+    private final LinkedHashMap<Object, Object> entries;
+    private final List<EntryListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BoundedLruCache(int maxSize) {
+        this.maxSize = Math.max(1, maxSize);
+        // Access order, so the head of the map is always the least recently used entry
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> V get(K key) {
+        Object value;
+        synchronized(entries) {
+            value = entries.get(key);
+        }
+        if(value == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        listeners.forEach(listener -> listener.onEntryRead(key, value));
+        return (V) value;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        Object previous;
+        Map.Entry<Object, Object> evicted;
+        synchronized(entries) {
+            previous = entries.put(key, value);
+            evicted = evictIfFull();
+        }
+        if(previous == null) {
+            listeners.forEach(listener -> listener.onEntryCreated(key, value));
+        } else {
+            listeners.forEach(listener -> listener.onEntryUpdated(key, value));
+        }
+        notifyEvicted(evicted);
+    }
+
+    @Override
+    public boolean putIfAbsent(Object key, Object value) {
+        Map.Entry<Object, Object> evicted;
+        synchronized(entries) {
+            if(entries.containsKey(key)) {
+                return false;
+            }
+            entries.put(key, value);
+            evicted = evictIfFull();
+        }
+        listeners.forEach(listener -> listener.onEntryCreated(key, value));
+        notifyEvicted(evicted);
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object key) {
+        boolean removed;
+        synchronized(entries) {
+            removed = entries.remove(key) != null;
+        }
+        if(removed) {
+            listeners.forEach(listener -> listener.onEntryRemoved(key));
+        }
+        return removed;
+    }
+
+    public void removeAll() {
+        synchronized(entries) {
+            entries.clear();
+        }
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        synchronized(entries) {
+            return entries.containsKey(key);
+        }
+    }
+
+    @Override
+    public Registration registerCacheEntryListener(EntryListener cacheEntryListener) {
+        listeners.add(cacheEntryListener);
+        return () -> listeners.remove(cacheEntryListener);
+    }
+
+    public Map<String, Object> getStatistics() {
+        long hitCount = hits.get();
+        long requests = hitCount + misses.get();
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        synchronized(entries) {
+            statistics.put("size", entries.size());
+        }
+        statistics.put("maxSize", maxSize);
+        statistics.put("hits", hitCount);
+        statistics.put("misses", misses.get());
+        statistics.put("hitRate", requests == 0 ? 0d : (double) hitCount / requests);
+        statistics.put("evictions", evictions.get());
+        return statistics;
+    }
+
+    private Map.Entry<Object, Object> evictIfFull() {
+        if(entries.size() <= maxSize) {
+            return null;
+        }
+        Iterator<Map.Entry<Object, Object>> iterator = entries.entrySet().iterator();
+        Map.Entry<Object, Object> eldest = iterator.next();
+        iterator.remove();
+        evictions.incrementAndGet();
+        return eldest;
+    }
+
+    private void notifyEvicted(Map.Entry<Object, Object> evicted) {
+        if(evicted != null) {
+            listeners.forEach(listener -> listener.onEntryExpired(evicted.getKey()));
+        }
+    }
+}
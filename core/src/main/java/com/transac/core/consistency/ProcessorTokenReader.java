@@ -0,0 +1,44 @@
+package com.transac.core.consistency;
+
+import org.axonframework.common.jpa.EntityManagerProvider;
+import org.axonframework.common.transaction.TransactionManager;
+import org.axonframework.eventhandling.TrackingToken;
+import org.axonframework.eventhandling.tokenstore.jpa.TokenEntry;
+import org.axonframework.serialization.Serializer;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+public class ProcessorTokenReader {
+
+    private final EntityManagerProvider entityManagerProvider;
+    private final TransactionManager transactionManager;
+    private final Serializer serializer;
+
+    public ProcessorTokenReader(EntityManagerProvider entityManagerProvider, TransactionManager transactionManager, Serializer serializer) {
+        this.entityManagerProvider = entityManagerProvider;
+        this.transactionManager = transactionManager;
+        this.serializer = serializer;
+    }
+
+    // Reads the stored token of every segment without claiming it, so segments owned by other instances are included.
+    // TokenStore.fetchToken would claim the segment it reads
+    public Map<Integer, TrackingToken> readTokens(String processorName) {
+        return transactionManager.fetchInTransaction(() -> {
+            List<TokenEntry> tokenEntries = entityManagerProvider.getEntityManager()
+                    .createQuery("SELECT t FROM TokenEntry t WHERE t.processorName = :processorName", TokenEntry.class)
+                    .setParameter("processorName", processorName)
+                    .getResultList();
+            Map<Integer, TrackingToken> tokens = new TreeMap<>();
+            for(TokenEntry tokenEntry : tokenEntries) {
+                tokens.put(tokenEntry.getSegment(), tokenEntry.getToken(serializer));
+            }
+            return tokens;
+        });
+    }
+
+    public static long position(TrackingToken token) {
+        return token == null ? -1 : token.position().orElse(-1);
+    }
+}
@@ -0,0 +1,184 @@
+package com.transac.core.consistency;
+
+import org.axonframework.config.EventProcessingConfiguration;
+import org.axonframework.eventhandling.TrackingEventProcessor;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ProjectionPositionTracker {
+
+    public static final String CONSISTENCY_TOKEN_HEADER = "Consistency-Token";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ProjectionPositionTracker.class);
+
+    private final String processorName;
+    private final EventProcessingConfiguration eventProcessingConfiguration;
+    private final EventStore eventStore;
+    private final ProcessorTokenReader tokenReader;
+    private final Duration waitTimeout;
+    private final ScheduledExecutorService scheduler;
+    private final ThreadPoolExecutor executor;
+    private final PriorityQueue<Waiter> waiters = new PriorityQueue<>(Comparator.comparingLong(Waiter::getPosition));
+
+    private final AtomicLong immediate = new AtomicLong();
+    private final AtomicLong waited = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    // Positions only move forward, so the last position read is a safe lower bound for the fast path
+    private volatile long knownPosition = -1;
+
+    public ProjectionPositionTracker(String processorName, EventProcessingConfiguration eventProcessingConfiguration, EventStore eventStore,
+                                     ProcessorTokenReader tokenReader, long pollIntervalMillis, long waitTimeoutMillis,
+                                     int executorThreads, int executorQueueCapacity) {
+        this.processorName = processorName;
+        this.eventProcessingConfiguration = eventProcessingConfiguration;
+        this.eventStore = eventStore;
+        this.tokenReader = tokenReader;
+        this.waitTimeout = Duration.ofMillis(waitTimeoutMillis);
+        // Bounded, so blocking queries and head position reads cannot pile up on a shared pool; when it is full the caller runs the task
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(executorThreads, executorThreads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(executorQueueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, processorName + "-consistency-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, processorName + "-position-tracker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.scheduler.scheduleWithFixedDelay(this::completeWaiters, pollIntervalMillis, pollIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // The position a command has produced, taken once the command has been committed
+    public long headPosition() {
+        return ProcessorTokenReader.position(eventStore.createHeadToken());
+    }
+
+    // Runs the blocking work that follows a wait or a command, such as projection queries and head position reads
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    // The projection has handled everything up to the slowest of all its segments. Segments claimed by other instances
+    // or by nobody are read from the token store, the ones claimed here are taken from the processor as it is fresher
+    public long currentPosition() {
+        Map<Integer, Long> positions = new HashMap<>();
+        tokenReader.readTokens(processorName).forEach((segment, token) -> positions.put(segment, ProcessorTokenReader.position(token)));
+        eventProcessingConfiguration.eventProcessor(processorName, TrackingEventProcessor.class).ifPresent(eventProcessor ->
+                eventProcessor.processingStatus().forEach((segment, status) -> positions.put(segment, status.getCurrentPosition().orElse(-1))));
+        long position = positions.values().stream().mapToLong(Long::longValue).min().orElse(-1);
+        knownPosition = Math.max(knownPosition, position);
+        return position;
+    }
+
+    public CompletableFuture<Void> awaitPosition(Long minPosition) {
+        if(minPosition == null || minPosition <= knownPosition) {
+            immediate.incrementAndGet();
+            return CompletableFuture.completedFuture(null);
+        }
+        // The token store is read on the tracker's own pool, so request threads and event processors do not wait on it
+        return CompletableFuture.supplyAsync(this::currentPosition, executor)
+                .thenCompose(position -> {
+                    if(minPosition <= position) {
+                        immediate.incrementAndGet();
+                        return CompletableFuture.completedFuture(null);
+                    }
+                    return waitFor(minPosition);
+                });
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdown();
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("processorName", processorName);
+        statistics.put("currentPosition", currentPosition());
+        synchronized(waiters) {
+            statistics.put("waiting", waiters.size());
+        }
+        statistics.put("immediate", immediate.get());
+        statistics.put("waited", waited.get());
+        statistics.put("timedOut", timedOut.get());
+        statistics.put("executorActive", executor.getActiveCount());
+        statistics.put("executorQueued", executor.getQueue().size());
+        return statistics;
+    }
+
+    private CompletableFuture<Void> waitFor(long minPosition) {
+        waited.incrementAndGet();
+        Waiter waiter = new Waiter(minPosition);
+        synchronized(waiters) {
+            waiters.add(waiter);
+        }
+        return waiter.future
+                .orTimeout(waitTimeout.toMillis(), TimeUnit.MILLISECONDS)
+                .whenComplete((result, exception) -> {
+                    if(exception != null) {
+                        timedOut.incrementAndGet();
+                        synchronized(waiters) {
+                            waiters.remove(waiter);
+                        }
+                    }
+                });
+    }
+
+    private void completeWaiters() {
+        synchronized(waiters) {
+            if(waiters.isEmpty()) {
+                return;
+            }
+        }
+        try {
+            long position = currentPosition();
+            List<Waiter> caughtUp = new ArrayList<>();
+            synchronized(waiters) {
+                while(!waiters.isEmpty() && waiters.peek().getPosition() <= position) {
+                    caughtUp.add(waiters.poll());
+                }
+            }
+            // Completed on the tracker's own pool, outside the lock, so the waiting queries do not run on the common pool
+            for(Waiter waiter : caughtUp) {
+                waiter.future.completeAsync(() -> null, executor);
+            }
+        } catch (Exception e) {
+            LOGGER.error("Reading the position of event processor " + processorName + " failed: " + e.getMessage());
+        }
+    }
+
+    private static class Waiter {
+        private final long position;
+        private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+        Waiter(long position) {
+            this.position = position;
+        }
+
+        long getPosition() {
+            return position;
+        }
+    }
+}
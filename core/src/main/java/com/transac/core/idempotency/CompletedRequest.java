@@ -0,0 +1,12 @@
+package com.transac.core.idempotency;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class CompletedRequest {
+    String fingerprint;
+    Object result;
+    Instant expiresAt;
+}
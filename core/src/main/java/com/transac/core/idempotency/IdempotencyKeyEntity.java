@@ -0,0 +1,24 @@
+package com.transac.core.idempotency;
+
+import lombok.Data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+
+@Entity
+@Table(name = "idempotency_keys", indexes = {
+        @Index(name = "idx_idempotency_keys_expires_at", columnList = "expiresAt")
+})
+@Data
+public class IdempotencyKeyEntity implements Serializable {
+
+    private static final long serialVersionUID = 4519871635208764312L;
+
+    @Id
+    private String idempotencyKey;
+    @Column(nullable = false)
+    private String fingerprint;
+    @Lob
+    private String response;
+    private long expiresAt;
+}
@@ -0,0 +1,162 @@
+package com.transac.core.idempotency;
+
+import com.transac.core.caching.BoundedLruCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+public class IdempotencyRegistry {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyRegistry.class);
+
+    private final IdempotencyStore idempotencyStore;
+    private final Duration ttl;
+    private final BoundedLruCache completedRequests;
+    private final Map<String, InFlightRequest> inFlightRequests = new ConcurrentHashMap<>();
+
+    private final AtomicLong executed = new AtomicLong();
+    private final AtomicLong joinedInFlight = new AtomicLong();
+    private final AtomicLong replayedFromMemory = new AtomicLong();
+    private final AtomicLong replayedFromStore = new AtomicLong();
+    private final AtomicLong rejectedReuse = new AtomicLong();
+
+    public IdempotencyRegistry(IdempotencyStore idempotencyStore, Duration ttl, int maxCompletedRequests) {
+        this.idempotencyStore = idempotencyStore;
+        this.ttl = ttl;
+        this.completedRequests = new BoundedLruCache(maxCompletedRequests);
+    }
+
+    // Runs the action once per key: concurrent duplicates share the in-flight result, later ones get the stored result.
+    // A failed action is not remembered, so the client can retry it with the same key
+    public <T> CompletableFuture<T> execute(String scope, String key, String fingerprint, Class<T> resultType,
+                                            Supplier<CompletableFuture<T>> action) {
+        if(key == null) {
+            return action.get();
+        }
+        String scopedKey = scope + ":" + key;
+        InFlightRequest request = new InFlightRequest(fingerprint);
+        InFlightRequest existing = inFlightRequests.putIfAbsent(scopedKey, request);
+        if(existing != null) {
+            if(!existing.fingerprint.equals(fingerprint)) {
+                return rejectReuse(key);
+            }
+            joinedInFlight.incrementAndGet();
+            return existing.result.thenApply(resultType::cast);
+        }
+        request.result.whenComplete((result, exception) -> inFlightRequests.remove(scopedKey, request));
+
+        try {
+            Optional<CompletedRequest> completedRequest = findCompleted(scopedKey, resultType);
+            if(completedRequest.isPresent()) {
+                if(completedRequest.get().getFingerprint().equals(fingerprint)) {
+                    request.result.complete(completedRequest.get().getResult());
+                } else {
+                    rejectedReuse.incrementAndGet();
+                    request.result.completeExceptionally(new IdempotencyKeyReusedException(key));
+                }
+            } else {
+                executed.incrementAndGet();
+                action.get().whenComplete((result, exception) -> {
+                    if(exception != null) {
+                        request.result.completeExceptionally(exception);
+                        return;
+                    }
+                    remember(scopedKey, new CompletedRequest(fingerprint, result, Instant.now().plus(ttl)));
+                    request.result.complete(result);
+                });
+            }
+        } catch (Exception e) {
+            request.result.completeExceptionally(e);
+        }
+        return request.result.thenApply(resultType::cast);
+    }
+
+    // Hashes the request fields in a canonical form, so 10 and 10.0 or a reordered JSON body give the same fingerprint.
+    // Each field is length prefixed, so values cannot run into each other
+    public static String fingerprint(Object... fields) {
+        StringBuilder canonical = new StringBuilder();
+        for(Object field : fields) {
+            String value = field == null ? "" : field instanceof BigDecimal
+                    ? ((BigDecimal) field).stripTrailingZeros().toPlainString()
+                    : field.toString();
+            canonical.append(field == null ? -1 : value.length()).append(':').append(value);
+        }
+        try {
+            StringBuilder hash = new StringBuilder();
+            for(byte b : MessageDigest.getInstance("SHA-256").digest(canonical.toString().getBytes(StandardCharsets.UTF_8))) {
+                hash.append(String.format("%02x", b));
+            }
+            return hash.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public Map<String, Object> getStatistics() {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        statistics.put("inFlight", inFlightRequests.size());
+        statistics.put("executed", executed.get());
+        statistics.put("joinedInFlight", joinedInFlight.get());
+        statistics.put("replayedFromMemory", replayedFromMemory.get());
+        statistics.put("replayedFromStore", replayedFromStore.get());
+        statistics.put("rejectedReuse", rejectedReuse.get());
+        statistics.put("completedCache", completedRequests.getStatistics());
+        return statistics;
+    }
+
+    private Optional<CompletedRequest> findCompleted(String scopedKey, Class<?> resultType) {
+        CompletedRequest completedRequest = completedRequests.get(scopedKey);
+        if(completedRequest != null && completedRequest.getExpiresAt().isAfter(Instant.now())) {
+            replayedFromMemory.incrementAndGet();
+            return Optional.of(completedRequest);
+        }
+        Optional<CompletedRequest> storedRequest = idempotencyStore.find(scopedKey, resultType)
+                .filter(stored -> stored.getExpiresAt().isAfter(Instant.now()));
+        storedRequest.ifPresent(stored -> {
+            replayedFromStore.incrementAndGet();
+            completedRequests.put(scopedKey, stored);
+        });
+        return storedRequest;
+    }
+
+    private void remember(String scopedKey, CompletedRequest completedRequest) {
+        completedRequests.put(scopedKey, completedRequest);
+        try {
+            idempotencyStore.save(scopedKey, completedRequest);
+        } catch (Exception e) {
+            // The in-memory entry still covers retries to this instance
+            LOGGER.error("Storing idempotency key " + scopedKey + " failed: " + e.getMessage());
+        }
+    }
+
+    private <T> CompletableFuture<T> rejectReuse(String key) {
+        rejectedReuse.incrementAndGet();
+        CompletableFuture<T> rejected = new CompletableFuture<>();
+        rejected.completeExceptionally(new IdempotencyKeyReusedException(key));
+        return rejected;
+    }
+
+    private static class InFlightRequest {
+        private final String fingerprint;
+        private final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        InFlightRequest(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.transac.core.idempotency;
+
+import java.util.Optional;
+
+public interface IdempotencyStore {
+
+    Optional<CompletedRequest> find(String key, Class<?> resultType);
+
+    void save(String key, CompletedRequest completedRequest);
+}
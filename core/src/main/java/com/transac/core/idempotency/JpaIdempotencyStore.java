@@ -0,0 +1,84 @@
+package com.transac.core.idempotency;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.axonframework.common.jpa.EntityManagerProvider;
+import org.axonframework.common.transaction.TransactionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Shared by the services; each one creates a single store, and with it a single purge thread, for its own database
+public class JpaIdempotencyStore implements IdempotencyStore {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(JpaIdempotencyStore.class);
+
+    private final EntityManagerProvider entityManagerProvider;
+    private final TransactionManager transactionManager;
+    private final ObjectMapper objectMapper;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "idempotency-key-purge");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public JpaIdempotencyStore(EntityManagerProvider entityManagerProvider, TransactionManager transactionManager, ObjectMapper objectMapper,
+                               long purgeIntervalMillis) {
+        this.entityManagerProvider = entityManagerProvider;
+        this.transactionManager = transactionManager;
+        this.objectMapper = objectMapper;
+        this.scheduler.scheduleWithFixedDelay(this::purgeExpired, purgeIntervalMillis, purgeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public Optional<CompletedRequest> find(String key, Class<?> resultType) {
+        IdempotencyKeyEntity idempotencyKeyEntity = transactionManager.fetchInTransaction(() ->
+                entityManagerProvider.getEntityManager().find(IdempotencyKeyEntity.class, key));
+        if(idempotencyKeyEntity == null) {
+            return Optional.empty();
+        }
+        try {
+            Object result = idempotencyKeyEntity.getResponse() == null ? null : objectMapper.readValue(idempotencyKeyEntity.getResponse(), resultType);
+            return Optional.of(new CompletedRequest(idempotencyKeyEntity.getFingerprint(), result, Instant.ofEpochMilli(idempotencyKeyEntity.getExpiresAt())));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored response for idempotency key " + key + " cannot be read", e);
+        }
+    }
+
+    @Override
+    public void save(String key, CompletedRequest completedRequest) {
+        IdempotencyKeyEntity idempotencyKeyEntity = new IdempotencyKeyEntity();
+        idempotencyKeyEntity.setIdempotencyKey(key);
+        idempotencyKeyEntity.setFingerprint(completedRequest.getFingerprint());
+        idempotencyKeyEntity.setExpiresAt(completedRequest.getExpiresAt().toEpochMilli());
+        try {
+            idempotencyKeyEntity.setResponse(completedRequest.getResult() == null ? null : objectMapper.writeValueAsString(completedRequest.getResult()));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Response for idempotency key " + key + " cannot be stored", e);
+        }
+        transactionManager.executeInTransaction(() -> entityManagerProvider.getEntityManager().merge(idempotencyKeyEntity));
+    }
+
+    private void purgeExpired() {
+        try {
+            int purged = transactionManager.fetchInTransaction(() -> entityManagerProvider.getEntityManager()
+                    .createQuery("DELETE FROM IdempotencyKeyEntity k WHERE k.expiresAt < :now")
+                    .setParameter("now", System.currentTimeMillis())
+                    .executeUpdate());
+            if(purged > 0) {
+                LOGGER.info("Purged " + purged + " expired idempotency keys");
+            }
+        } catch (Exception e) {
+            LOGGER.error("Purging expired idempotency keys failed: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.transac.core.snapshotting;
+
+import org.axonframework.eventhandling.DomainEventMessage;
+import org.axonframework.eventhandling.EventMessage;
+import org.axonframework.eventsourcing.SnapshotTrigger;
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+
+import java.io.Serializable;
+
+class AdaptiveSnapshotTrigger implements SnapshotTrigger, Serializable {
+
+    private static final long serialVersionUID = 3152938741957416108L;
+
+    private transient AdaptiveSnapshotTriggerDefinition definition;
+    private transient long loadStartNanos;
+    private final Class<?> aggregateType;
+    private String aggregateIdentifier;
+    private int eventsSinceSnapshot;
+    private long lastLoadTimeNanos;
+    private boolean initialized;
+
+    AdaptiveSnapshotTrigger(AdaptiveSnapshotTriggerDefinition definition, Class<?> aggregateType) {
+        this.definition = definition;
+        this.aggregateType = aggregateType;
+        this.loadStartNanos = System.nanoTime();
+    }
+
+    @Override
+    public void eventHandled(EventMessage<?> message) {
+        if(!(message instanceof DomainEventMessage)) {
+            return;
+        }
+        aggregateIdentifier = ((DomainEventMessage<?>) message).getAggregateIdentifier();
+        if(aggregateType.isAssignableFrom(message.getPayloadType())) {
+            // Loading started from a snapshot, only the events after it count
+            eventsSinceSnapshot = 0;
+            return;
+        }
+        eventsSinceSnapshot++;
+        if(initialized && definition.shouldSnapshot(aggregateType, lastLoadTimeNanos, eventsSinceSnapshot)) {
+            scheduleSnapshot();
+        }
+    }
+
+    @Override
+    public void initializationFinished() {
+        lastLoadTimeNanos = System.nanoTime() - loadStartNanos;
+        definition.getMetrics().recordLoad(aggregateType, lastLoadTimeNanos, eventsSinceSnapshot);
+        if(aggregateIdentifier != null && definition.shouldSnapshot(aggregateType, lastLoadTimeNanos, eventsSinceSnapshot)) {
+            scheduleSnapshot();
+        }
+        initialized = true;
+    }
+
+    void reconfigure(AdaptiveSnapshotTriggerDefinition definition) {
+        this.definition = definition;
+        // A reused (cached) aggregate was not loaded, so there is no load time to account for
+        this.lastLoadTimeNanos = 0;
+    }
+
+    private void scheduleSnapshot() {
+        String identifier = aggregateIdentifier;
+        Runnable snapshot = () -> definition.snapshotter().scheduleSnapshot(aggregateType, identifier);
+        definition.getMetrics().recordSnapshot(aggregateType);
+        eventsSinceSnapshot = 0;
+        lastLoadTimeNanos = 0;
+        if(!CurrentUnitOfWork.isStarted()) {
+            snapshot.run();
+        } else if(initialized) {
+            CurrentUnitOfWork.get().onPrepareCommit(unitOfWork -> snapshot.run());
+        } else {
+            CurrentUnitOfWork.get().onCleanup(unitOfWork -> snapshot.run());
+        }
+    }
+}
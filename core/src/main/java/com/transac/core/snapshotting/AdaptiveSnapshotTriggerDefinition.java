@@ -0,0 +1,65 @@
+package com.transac.core.snapshotting;
+
+import lombok.Builder;
+import lombok.Singular;
+import org.axonframework.eventsourcing.SnapshotTrigger;
+import org.axonframework.eventsourcing.SnapshotTriggerDefinition;
+import org.axonframework.eventsourcing.Snapshotter;
+
+import java.time.Duration;
+import java.util.Map;
+
+public class AdaptiveSnapshotTriggerDefinition implements SnapshotTriggerDefinition {
+
+    private final Snapshotter snapshotter;
+    private final Duration defaultLoadTimeTarget;
+    private final Map<Class<?>, Duration> loadTimeTargets;
+    private final int minEventsBetweenSnapshots;
+    private final int maxEventsBetweenSnapshots;
+    private final SnapshotMetrics metrics = new SnapshotMetrics();
+
+    @Builder
+    private AdaptiveSnapshotTriggerDefinition(Snapshotter snapshotter,
+                                              Duration defaultLoadTimeTarget,
+                                              @Singular Map<Class<?>, Duration> loadTimeTargets,
+                                              int minEventsBetweenSnapshots,
+                                              int maxEventsBetweenSnapshots) {
+        if(snapshotter == null) {
+            throw new IllegalArgumentException("Snapshotter is required");
+        }
+        this.snapshotter = snapshotter;
+        this.defaultLoadTimeTarget = defaultLoadTimeTarget == null ? Duration.ofMillis(50) : defaultLoadTimeTarget;
+        this.loadTimeTargets = loadTimeTargets;
+        this.minEventsBetweenSnapshots = Math.max(1, minEventsBetweenSnapshots);
+        this.maxEventsBetweenSnapshots = maxEventsBetweenSnapshots <= 0 ? Integer.MAX_VALUE : maxEventsBetweenSnapshots;
+    }
+
+    @Override
+    public SnapshotTrigger prepareTrigger(Class<?> aggregateType) {
+        return new AdaptiveSnapshotTrigger(this, aggregateType);
+    }
+
+    @Override
+    public SnapshotTrigger reconfigure(Class<?> aggregateType, SnapshotTrigger trigger) {
+        if(trigger instanceof AdaptiveSnapshotTrigger) {
+            ((AdaptiveSnapshotTrigger) trigger).reconfigure(this);
+        }
+        return trigger;
+    }
+
+    public SnapshotMetrics getMetrics() {
+        return metrics;
+    }
+
+    Snapshotter snapshotter() {
+        return snapshotter;
+    }
+
+    boolean shouldSnapshot(Class<?> aggregateType, long loadTimeNanos, int eventsSinceSnapshot) {
+        if(eventsSinceSnapshot < minEventsBetweenSnapshots) {
+            return false;
+        }
+        Duration loadTimeTarget = loadTimeTargets.getOrDefault(aggregateType, defaultLoadTimeTarget);
+        return eventsSinceSnapshot >= maxEventsBetweenSnapshots || loadTimeNanos >= loadTimeTarget.toNanos();
+    }
+}
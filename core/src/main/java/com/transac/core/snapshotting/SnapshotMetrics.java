@@ -0,0 +1,54 @@
+package com.transac.core.snapshotting;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SnapshotMetrics {
+
+    private final Map<String, AggregateMetrics> metrics = new ConcurrentHashMap<>();
+
+    public void recordLoad(Class<?> aggregateType, long loadTimeNanos, int eventsReplayed) {
+        AggregateMetrics aggregateMetrics = forType(aggregateType);
+        aggregateMetrics.loads.increment();
+        aggregateMetrics.totalLoadTimeNanos.add(loadTimeNanos);
+        aggregateMetrics.maxLoadTimeNanos.accumulate(loadTimeNanos);
+        aggregateMetrics.eventsReplayed.add(eventsReplayed);
+    }
+
+    public void recordSnapshot(Class<?> aggregateType) {
+        forType(aggregateType).snapshotsScheduled.increment();
+    }
+
+    public Map<String, Map<String, Object>> getStatistics() {
+        Map<String, Map<String, Object>> statistics = new TreeMap<>();
+        metrics.forEach((aggregateType, aggregateMetrics) -> statistics.put(aggregateType, aggregateMetrics.toMap()));
+        return statistics;
+    }
+
+    private AggregateMetrics forType(Class<?> aggregateType) {
+        return metrics.computeIfAbsent(aggregateType.getSimpleName(), type -> new AggregateMetrics());
+    }
+
+    private static class AggregateMetrics {
+        private final LongAdder loads = new LongAdder();
+        private final LongAdder totalLoadTimeNanos = new LongAdder();
+        private final LongAccumulator maxLoadTimeNanos = new LongAccumulator(Math::max, 0);
+        private final LongAdder eventsReplayed = new LongAdder();
+        private final LongAdder snapshotsScheduled = new LongAdder();
+
+        Map<String, Object> toMap() {
+            long loadCount = loads.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("loads", loadCount);
+            map.put("averageLoadTimeMillis", loadCount == 0 ? 0d : totalLoadTimeNanos.sum() / 1_000_000d / loadCount);
+            map.put("maxLoadTimeMillis", maxLoadTimeNanos.get() / 1_000_000d);
+            map.put("averageEventsReplayed", loadCount == 0 ? 0d : (double) eventsReplayed.sum() / loadCount);
+            map.put("snapshotsScheduled", snapshotsScheduled.sum());
+            return map;
+        }
+    }
+}
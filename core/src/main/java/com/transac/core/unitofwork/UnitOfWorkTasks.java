@@ -0,0 +1,26 @@
+package com.transac.core.unitofwork;
+
+import org.axonframework.messaging.unitofwork.CurrentUnitOfWork;
+
+public final class UnitOfWorkTasks {
+
+    private UnitOfWorkTasks() {
+    }
+
+    // In-memory state must only follow changes that were actually stored
+    public static void runAfterCommitOrNow(Runnable task) {
+        if(CurrentUnitOfWork.isStarted()) {
+            CurrentUnitOfWork.get().afterCommit(unitOfWork -> task.run());
+        } else {
+            task.run();
+        }
+    }
+
+    public static void runOnCleanupOrNow(Runnable task) {
+        if(CurrentUnitOfWork.isStarted()) {
+            CurrentUnitOfWork.get().onCleanup(unitOfWork -> task.run());
+        } else {
+            task.run();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.transac.core.caching;
+
+import org.axonframework.common.caching.Cache;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedLruCacheTests {
+
+    private final BoundedLruCache cache = new BoundedLruCache(2);
+
+    @Test
+    void theLeastRecentlyUsedEntryIsEvicted() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.get("a");
+        cache.put("c", 3);
+
+        assertTrue(cache.containsKey("a"));
+        assertFalse(cache.containsKey("b"));
+        assertTrue(cache.containsKey("c"));
+        assertEquals(1L, cache.getStatistics().get("evictions"));
+    }
+
+    @Test
+    void putIfAbsentKeepsTheExistingValue() {
+        assertTrue(cache.putIfAbsent("a", 1));
+        assertFalse(cache.putIfAbsent("a", 2));
+
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+    }
+
+    @Test
+    void hitsAndMissesAreCounted() {
+        cache.put("a", 1);
+        cache.get("a");
+        cache.get("b");
+
+        assertEquals(1L, cache.getStatistics().get("hits"));
+        assertEquals(1L, cache.getStatistics().get("misses"));
+        assertEquals(0.5d, cache.getStatistics().get("hitRate"));
+    }
+
+    @Test
+    void listenersHearAboutEveryChange() {
+        List<String> changes = new ArrayList<>();
+        cache.registerCacheEntryListener(new Cache.EntryListenerAdapter() {
+            @Override
+            public void onEntryCreated(Object key, Object value) {
+                changes.add("created " + key);
+            }
+
+            @Override
+            public void onEntryUpdated(Object key, Object value) {
+                changes.add("updated " + key);
+            }
+
+            @Override
+            public void onEntryRemoved(Object key) {
+                changes.add("removed " + key);
+            }
+
+            @Override
+            public void onEntryExpired(Object key) {
+                changes.add("expired " + key);
+            }
+        });
+
+        cache.put("a", 1);
+        cache.put("a", 2);
+        cache.put("b", 1);
+        cache.put("c", 1);
+        cache.remove("b");
+
+        assertEquals(List.of("created a", "updated a", "created b", "created c", "expired a", "removed b"), changes);
+    }
+
+    @Test
+    void removeAllEmptiesTheCache() {
+        cache.put("a", 1);
+        cache.put("b", 2);
+
+        cache.removeAll();
+
+        assertNull(cache.get("a"));
+        assertEquals(0, cache.getStatistics().get("size"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.transac.core.consistency;
+
+import org.axonframework.config.EventProcessingConfiguration;
+import org.axonframework.eventhandling.GlobalSequenceTrackingToken;
+import org.axonframework.eventhandling.TrackingEventProcessor;
+import org.axonframework.eventsourcing.eventstore.EventStore;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProjectionPositionTrackerTests {
+
+    private final ProcessorTokenReader tokenReader = mock(ProcessorTokenReader.class);
+    private final EventProcessingConfiguration eventProcessingConfiguration = mock(EventProcessingConfiguration.class);
+    private final ProjectionPositionTracker tracker = new ProjectionPositionTracker("product-group", eventProcessingConfiguration,
+            mock(EventStore.class), tokenReader, 10, 1000, 1, 10);
+
+    @AfterEach
+    void tearDown() {
+        tracker.shutdown();
+    }
+
+    @Test
+    void theFirstPositionReadDoesNotRunOnTheCallingThread() throws Exception {
+        AtomicReference<Thread> readingThread = new AtomicReference<>();
+        when(eventProcessingConfiguration.eventProcessor(eq("product-group"), eq(TrackingEventProcessor.class))).thenReturn(Optional.empty());
+        when(tokenReader.readTokens("product-group")).thenAnswer(invocation -> {
+            readingThread.compareAndSet(null, Thread.currentThread());
+            return Map.of(0, new GlobalSequenceTrackingToken(5));
+        });
+
+        tracker.awaitPosition(5L).get(1, TimeUnit.SECONDS);
+
+        assertNotEquals(Thread.currentThread(), readingThread.get());
+        assertEquals(1L, tracker.getStatistics().get("immediate"));
+    }
+
+    @Test
+    void positionsAheadOfTheProjectionWaitForIt() throws Exception {
+        when(eventProcessingConfiguration.eventProcessor(any(), eq(TrackingEventProcessor.class))).thenReturn(Optional.empty());
+        when(tokenReader.readTokens("product-group"))
+                .thenReturn(Map.of(0, new GlobalSequenceTrackingToken(5)))
+                .thenReturn(Map.of(0, new GlobalSequenceTrackingToken(9)));
+
+        tracker.awaitPosition(9L).get(1, TimeUnit.SECONDS);
+
+        assertEquals(1L, tracker.getStatistics().get("waited"));
+    }
+}
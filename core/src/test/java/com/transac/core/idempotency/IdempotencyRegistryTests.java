@@ -0,0 +1,127 @@
+package com.transac.core.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyRegistryTests {
+
+    private final InMemoryIdempotencyStore idempotencyStore = new InMemoryIdempotencyStore();
+    private final IdempotencyRegistry registry = new IdempotencyRegistry(idempotencyStore, Duration.ofMinutes(1), 100);
+
+    @Test
+    void concurrentDuplicateJoinsInFlightRequest() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<String> action = new CompletableFuture<>();
+
+        CompletableFuture<String> first = registry.execute("create", "key-1", "fp", String.class, () -> {
+            executions.incrementAndGet();
+            return action;
+        });
+        CompletableFuture<String> duplicate = registry.execute("create", "key-1", "fp", String.class, () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture("other");
+        });
+        action.complete("order-1");
+
+        assertEquals("order-1", first.get());
+        assertEquals("order-1", duplicate.get());
+        assertEquals(1, executions.get());
+        assertEquals(1L, registry.getStatistics().get("joinedInFlight"));
+    }
+
+    @Test
+    void inFlightKeyWithOtherFingerprintIsRejectedWithoutJoining() {
+        registry.execute("create", "key-1", "fp-1", String.class, CompletableFuture::new);
+
+        CompletableFuture<String> reused = registry.execute("create", "key-1", "fp-2", String.class,
+                () -> CompletableFuture.completedFuture("other"));
+
+        ExecutionException exception = assertThrows(ExecutionException.class, reused::get);
+        assertTrue(exception.getCause() instanceof IdempotencyKeyReusedException);
+        assertEquals(0L, registry.getStatistics().get("joinedInFlight"));
+        assertEquals(1L, registry.getStatistics().get("rejectedReuse"));
+    }
+
+    @Test
+    void completedRequestIsReplayedAndStored() throws Exception {
+        registry.execute("create", "key-1", "fp", String.class, () -> CompletableFuture.completedFuture("order-1")).get();
+
+        String replayed = registry.execute("create", "key-1", "fp", String.class,
+                () -> CompletableFuture.completedFuture("order-2")).get();
+
+        assertEquals("order-1", replayed);
+        assertEquals(1L, registry.getStatistics().get("executed"));
+        assertEquals("order-1", idempotencyStore.completedRequests.get("create:key-1").getResult());
+    }
+
+    @Test
+    void storedRequestIsReplayedByAnotherInstance() throws Exception {
+        registry.execute("create", "key-1", "fp", String.class, () -> CompletableFuture.completedFuture("order-1")).get();
+        IdempotencyRegistry otherInstance = new IdempotencyRegistry(idempotencyStore, Duration.ofMinutes(1), 100);
+
+        String replayed = otherInstance.execute("create", "key-1", "fp", String.class,
+                () -> CompletableFuture.completedFuture("order-2")).get();
+
+        assertEquals("order-1", replayed);
+        assertEquals(1L, otherInstance.getStatistics().get("replayedFromStore"));
+    }
+
+    @Test
+    void failedRequestIsNotRemembered() throws Exception {
+        CompletableFuture<String> failed = new CompletableFuture<>();
+        failed.completeExceptionally(new IllegalStateException("Command failed"));
+        CompletableFuture<String> first = registry.execute("create", "key-1", "fp", String.class, () -> failed);
+        assertThrows(ExecutionException.class, first::get);
+
+        String retried = registry.execute("create", "key-1", "fp", String.class,
+                () -> CompletableFuture.completedFuture("order-1")).get();
+
+        assertEquals("order-1", retried);
+        assertEquals(2L, registry.getStatistics().get("executed"));
+    }
+
+    @Test
+    void requestWithoutKeyAlwaysRuns() throws Exception {
+        AtomicInteger executions = new AtomicInteger();
+
+        registry.execute("create", null, "fp", String.class, () -> CompletableFuture.completedFuture("order-" + executions.incrementAndGet())).get();
+        registry.execute("create", null, "fp", String.class, () -> CompletableFuture.completedFuture("order-" + executions.incrementAndGet())).get();
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void fingerprintIsCanonical() {
+        assertEquals(IdempotencyRegistry.fingerprint("title", new BigDecimal("10"), 1),
+                IdempotencyRegistry.fingerprint("title", new BigDecimal("10.0"), 1));
+        assertNotEquals(IdempotencyRegistry.fingerprint("ab", "c"), IdempotencyRegistry.fingerprint("a", "bc"));
+        assertNotEquals(IdempotencyRegistry.fingerprint((Object) null), IdempotencyRegistry.fingerprint(""));
+    }
+
+    private static class InMemoryIdempotencyStore implements IdempotencyStore {
+        private final Map<String, CompletedRequest> completedRequests = new ConcurrentHashMap<>();
+
+        @Override
+        public Optional<CompletedRequest> find(String key, Class<?> resultType) {
+            return Optional.ofNullable(completedRequests.get(key));
+        }
+
+        @Override
+        public void save(String key, CompletedRequest completedRequest) {
+            completedRequests.put(key, completedRequest);
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.transac.core.unitofwork;
+
+import org.axonframework.messaging.unitofwork.DefaultUnitOfWork;
+import org.axonframework.messaging.unitofwork.UnitOfWork;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UnitOfWorkTasksTests {
+
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @Test
+    void tasksRunRightAwayWithoutAUnitOfWork() {
+        UnitOfWorkTasks.runAfterCommitOrNow(runs::incrementAndGet);
+        UnitOfWorkTasks.runOnCleanupOrNow(runs::incrementAndGet);
+
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void afterCommitTasksWaitForTheCommit() {
+        UnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        UnitOfWorkTasks.runAfterCommitOrNow(runs::incrementAndGet);
+        assertEquals(0, runs.get());
+
+        unitOfWork.commit();
+        assertEquals(1, runs.get());
+    }
+
+    @Test
+    void afterCommitTasksAreDroppedOnRollback() {
+        UnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        UnitOfWorkTasks.runAfterCommitOrNow(runs::incrementAndGet);
+
+        unitOfWork.rollback();
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void cleanupTasksRunOnRollback() {
+        UnitOfWork<?> unitOfWork = DefaultUnitOfWork.startAndGet(null);
+        UnitOfWorkTasks.runOnCleanupOrNow(runs::incrementAndGet);
+        assertEquals(0, runs.get());
+
+        unitOfWork.rollback();
+        assertEquals(1, runs.get());
+    }
+}